@@ -38,9 +38,10 @@ import com.jme3.app.Application;
 import com.jme3.app.state.BaseAppState;
 import com.jme3.math.Quaternion;
 import com.jme3.math.Vector3f;
-import com.simsilica.es.Entity;
 import com.simsilica.es.EntityData;
-import com.simsilica.es.EntitySet;
+import com.simsilica.es.base.ComponentColumn;
+import com.simsilica.es.base.DefaultEntityData;
+import com.simsilica.es.base.DenseEntitySet;
 
 
 /**
@@ -54,14 +55,20 @@ import com.simsilica.es.EntitySet;
 public class PhysicsState extends BaseAppState {
 
     private EntityData ed;
-    private EntitySet entities;
+    private DenseEntitySet entities;
+    private ComponentColumn<Position> positions;
+    private ComponentColumn<Velocity> velocities;
     private long lastFrame;
 
     @Override
     protected void initialize( Application app ) {
 
         ed = getState(EntityDataState.class).getEntityData();
-        entities = ed.getEntities(Position.class, Velocity.class);
+        // The dense set lets us walk the position and velocity columns
+        // directly in integrate() without looking up components by class.
+        entities = ((DefaultEntityData)ed).getDenseEntities(Position.class, Velocity.class);
+        positions = entities.column(Position.class);
+        velocities = entities.column(Velocity.class);
     }
 
     @Override
@@ -69,6 +76,8 @@ public class PhysicsState extends BaseAppState {
         // Release the entity set we grabbed previously
         entities.release();
         entities = null;
+        positions = null;
+        velocities = null;
     }
 
     @Override
@@ -103,9 +112,9 @@ public class PhysicsState extends BaseAppState {
         // Make sure we have the latest set but we
         // don't really care who left or joined
         entities.applyChanges();
-        for( Entity e : entities ) {
-            Position pos = e.get(Position.class);
-            Velocity vel = e.get(Velocity.class);
+        for( int i = 0, size = entities.size(); i < size; i++ ) {
+            Position pos = positions.get(i);
+            Velocity vel = velocities.get(i);
 
             Vector3f loc = pos.getLocation();
             Vector3f linear = vel.getLinear();
@@ -119,7 +128,7 @@ public class PhysicsState extends BaseAppState {
             orientation = addScaledVector(orientation, vel.getAngular(), tpf);
             orientation.normalizeLocal();
 
-            e.set(new Position(loc, orientation));
+            entities.get(i).set(new Position(loc, orientation));
         }
     }
 
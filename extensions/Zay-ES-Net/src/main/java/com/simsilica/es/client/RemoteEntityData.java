@@ -50,6 +50,7 @@ import com.jme3.network.Message;
 import com.simsilica.es.*;
 import com.simsilica.es.base.DefaultEntity;
 import com.simsilica.es.base.DefaultEntitySet;
+import com.simsilica.es.base.EntityHashSet;
 import com.simsilica.es.base.DefaultWatchedEntity;
 
 import com.simsilica.es.net.*;
@@ -648,6 +649,12 @@ public class RemoteEntityData implements EntityData {
             directAdds.add(e);
         }
 
+        @Override
+        protected void prefetchComponents( EntityHashSet<DefaultEntity> adds ) {
+            // The server sends everything we need so there is nothing
+            // to retrieve.  See completeEntity().
+        }
+
         @Override
         protected boolean completeEntity( DefaultEntity e ) {
 
@@ -702,19 +709,10 @@ public class RemoteEntityData implements EntityData {
         }
 
         protected <T extends EntityComponent> T checkChangeQueue( EntityId id, Class<T> type ) {
-            // We will go through all of them because we want the latest
-            // value.
-            T result = null;
-            for( EntityChange change : getChangeQueue() ) {
-                if( type != change.getComponentType() ) {
-                    continue;
-                }
-                if( !Objects.equals(id, change.getEntityId() ) ) {
-                    continue;
-                }
-                result = type.cast(change.getComponent());
-            }
-            return result;
+            // The change buffer only keeps the latest value so there is
+            // no need to go through all of them.
+            EntityChange change = getPendingChange(id, type);
+            return change == null ? null : type.cast(change.getComponent());
         }
     }
 
@@ -43,7 +43,9 @@ import com.simsilica.es.EntityId;
 import com.simsilica.es.Name;
 import com.simsilica.es.filter.AndFilter;
 import com.simsilica.es.filter.FieldFilter;
+import com.simsilica.es.filter.InFilter;
 import com.simsilica.es.filter.OrFilter;
+import com.simsilica.es.filter.RangeFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -83,6 +85,8 @@ public class EntitySerializers {
         FieldFilter.class,
         OrFilter.class,
         AndFilter.class,
+        RangeFilter.class,
+        InFilter.class,
         EntityCriteria.class
     };
 
@@ -116,6 +116,16 @@ public class EntityDataWrapper implements ObservableEntityData {
         return delegate.createEntity();
     }
 
+    @Override
+    public EntityId[] createEntities( int count, EntityComponent... template ) {
+        return delegate.createEntities(count, template);
+    }
+
+    @Override
+    public ComponentBatch batch() {
+        return delegate.batch();
+    }
+
     @Override
     public void removeEntity( EntityId entityId ) {
         delegate.removeEntity(entityId);
@@ -0,0 +1,150 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es;
+
+import java.util.*;
+
+/**
+ *  Accumulates component sets and removes so that they can be committed
+ *  to an EntityData all at once.  EntityData implementations that support
+ *  it will write all of the components before notifying any entity sets or
+ *  listeners of the changes.  For example, an entity spawned with all of its
+ *  components in one batch will show up in an entity set as one complete
+ *  add instead of a partial entity that must be filled in.
+ *
+ *  <p>A batch is not thread safe and can be reused after commit().</p>
+ *
+ *  @author    Paul Speed
+ */
+public class ComponentBatch {
+
+    private final EntityData ed;
+    private final List<EntityChange> changes = new ArrayList<>();
+
+    public ComponentBatch( EntityData ed ) {
+        this.ed = ed;
+    }
+
+    public <T extends EntityComponent> ComponentBatch setComponent( EntityId entityId, T component ) {
+        if( entityId == null ) {
+            throw new IllegalArgumentException("EntityId cannot be null.");
+        }
+        if( component == null ) {
+            throw new IllegalArgumentException("Component cannot be null, use removeComponent() instead.");
+        }
+        changes.add(new EntityChange(entityId, component));
+        return this;
+    }
+
+    public ComponentBatch setComponents( EntityId entityId, EntityComponent... components ) {
+        for( EntityComponent c : components ) {
+            setComponent(entityId, c);
+        }
+        return this;
+    }
+
+    public <T extends EntityComponent> ComponentBatch removeComponent( EntityId entityId, Class<T> type ) {
+        if( entityId == null ) {
+            throw new IllegalArgumentException("EntityId cannot be null.");
+        }
+        changes.add(new EntityChange(entityId, type));
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public ComponentBatch removeComponents( EntityId entityId, Class... types ) {
+        for( Class type : types ) {
+            removeComponent(entityId, type);
+        }
+        return this;
+    }
+
+    /**
+     *  Returns the number of uncommitted sets and removes.
+     */
+    public int size() {
+        return changes.size();
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     *  Returns the uncommitted changes in the order they were added.  Sets
+     *  have a non-null component and removes have a null component.
+     */
+    public List<EntityChange> getChanges() {
+        return Collections.unmodifiableList(changes);
+    }
+
+    /**
+     *  Applies all of the accumulated changes to the EntityData and
+     *  clears this batch.
+     */
+    public void commit() {
+        if( changes.isEmpty() ) {
+            return;
+        }
+        try {
+            apply(changes);
+        } finally {
+            changes.clear();
+        }
+    }
+
+    /**
+     *  Called by commit() to apply the changes.  The default implementation
+     *  applies them one at a time in order through the EntityData's regular
+     *  setComponent() and removeComponent() methods.
+     */
+    @SuppressWarnings("unchecked")
+    protected void apply( List<EntityChange> changes ) {
+        for( EntityChange change : changes ) {
+            if( change.getComponent() != null ) {
+                ed.setComponent(change.getEntityId(), change.getComponent());
+            } else {
+                ed.removeComponent(change.getEntityId(), change.getComponentType());
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[changes=" + changes.size() + "]";
+    }
+}
@@ -45,6 +45,29 @@ import java.util.*;
 public interface EntityData {
 
     public EntityId createEntity();
+
+    /**
+     *  Creates the specified number of new entities that all start with
+     *  the same template components and returns their IDs.  Since
+     *  components are immutable, the template instances are shared by
+     *  all of the new entities.  The default implementation creates them
+     *  one at a time but implementations can reserve the IDs and write the
+     *  components in bulk.
+     */
+    default EntityId[] createEntities( int count, EntityComponent... template ) {
+        if( count < 0 ) {
+            throw new IllegalArgumentException("Count cannot be negative:" + count);
+        }
+        EntityId[] results = new EntityId[count];
+        ComponentBatch batch = batch();
+        for( int i = 0; i < count; i++ ) {
+            results[i] = createEntity();
+            batch.setComponents(results[i], template);
+        }
+        batch.commit();
+        return results;
+    }
+
     public void removeEntity( EntityId entityId );
 
     public <T extends EntityComponent> void setComponent( EntityId entityId, T component );
@@ -52,8 +75,36 @@ public interface EntityData {
     public <T extends EntityComponent> boolean removeComponent( EntityId entityId, Class<T> type );
     public void removeComponents( EntityId entityId, Class... types );
 
+    /**
+     *  Returns a new ComponentBatch that can be used to accumulate
+     *  component sets and removes and then commit them all at once.
+     *  The default implementation simply applies them one at a time
+     *  on commit.
+     */
+    default ComponentBatch batch() {
+        return new ComponentBatch(this);
+    }
+
     public <T extends EntityComponent> T getComponent( EntityId entityId, Class<T> type );
 
+    /**
+     *  Returns the components of the specified type for all of the specified
+     *  entities that have one, keyed by entity ID.  The default implementation
+     *  calls getComponent() for each entity but implementations can retrieve
+     *  them in bulk.
+     */
+    default <T extends EntityComponent> Map<EntityId, T> getComponents( Collection<EntityId> entityIds,
+                                                                        Class<T> type ) {
+        Map<EntityId, T> results = new HashMap<>();
+        for( EntityId id : entityIds ) {
+            T value = getComponent(id, type);
+            if( value != null ) {
+                results.put(id, value);
+            }
+        }
+        return results;
+    }
+
     public Entity getEntity( EntityId entityId, Class... types );
     public EntityId findEntity( ComponentFilter filter, Class... types );
     public EntityId findEntity( EntityCriteria criteria );
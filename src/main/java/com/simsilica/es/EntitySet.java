@@ -35,6 +35,7 @@
 package com.simsilica.es;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 
 
@@ -128,6 +129,35 @@ public interface EntitySet extends Set<Entity> {
      */
     public boolean applyChanges( Set<EntityChange> updates );
 
+    /**
+     *  Applies up to maxChanges of the accumulated changes and returns
+     *  true if there were changes.  This lets a large backlog of changes
+     *  be spread over several calls.  The added, changed, and removed
+     *  sets only reflect what was applied by this call and
+     *  hasPendingChanges() tells if there is still more to apply.
+     *  The default implementation applies all of the changes.
+     */
+    default boolean applyChanges( int maxChanges ) {
+        return applyChanges();
+    }
+
+    /**
+     *  Applies as many of the accumulated changes as the implementation
+     *  thinks will fit in the specified time and returns true if there
+     *  were changes.  The default implementation applies all of the changes.
+     */
+    default boolean applyChanges( long time, TimeUnit unit ) {
+        return applyChanges();
+    }
+
+    /**
+     *  Returns true if there are accumulated changes that have not been
+     *  applied yet.  The default implementation always returns false.
+     */
+    default boolean hasPendingChanges() {
+        return false;
+    }
+
     /**
      *  Releases this entity set from processing further entity
      *  updates.  The entities contained in the set will remain
@@ -0,0 +1,221 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ *  Applies changes to a group of independent entity sets in parallel
+ *  on a ForkJoinPool.  applyChanges() does not return until every set
+ *  in the group has finished, so the caller can treat it exactly like
+ *  calling applyChanges() on each set in turn.
+ *
+ *  <p>Each set's applyChanges() only touches that set's own state but
+ *  it may load missing components from the EntityData on the pool
+ *  threads.  The standard in-memory component handlers are safe for
+ *  this.  SqlEntityData opens one connection per thread that accesses
+ *  it, so persistent types will open a connection per pool thread.
+ *  The sets in a group should not be accessed by other threads while
+ *  applyChanges() is running.</p>
+ *
+ *  <p>The group itself is not thread safe and is meant to be used from
+ *  the thread that would otherwise be calling applyChanges().</p>
+ *
+ *  @author    Paul Speed
+ */
+public class EntitySetGroup {
+
+    private final ForkJoinPool pool;
+    private final List<EntitySet> sets = new ArrayList<>();
+    private EntitySet[] array = null;
+    private int parallelThreshold = 2;
+
+    /**
+     *  Creates a group that uses the common ForkJoinPool.
+     */
+    public EntitySetGroup() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public EntitySetGroup( ForkJoinPool pool ) {
+        if( pool == null ) {
+            throw new IllegalArgumentException("Pool cannot be null");
+        }
+        this.pool = pool;
+    }
+
+    public void add( EntitySet set ) {
+        if( set == null ) {
+            throw new IllegalArgumentException("Set cannot be null");
+        }
+        sets.add(set);
+        array = null;
+    }
+
+    public boolean remove( EntitySet set ) {
+        if( sets.remove(set) ) {
+            array = null;
+            return true;
+        }
+        return false;
+    }
+
+    public void clear() {
+        sets.clear();
+        array = null;
+    }
+
+    public int size() {
+        return sets.size();
+    }
+
+    public List<EntitySet> getSets() {
+        return Collections.unmodifiableList(sets);
+    }
+
+    /**
+     *  Sets the minimum number of entity sets before applyChanges() will
+     *  bother going to the pool.  Smaller groups are applied directly on
+     *  the calling thread.  Defaults to 2.
+     */
+    public void setParallelThreshold( int parallelThreshold ) {
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     *  Calls applyChanges() on every set in the group, in parallel when
+     *  the group is large enough, and returns true if any of them changed.
+     *  If any set throws an exception then all of the other sets are still
+     *  applied before the first exception is rethrown.
+     */
+    public boolean applyChanges() {
+        if( array == null ) {
+            array = sets.toArray(new EntitySet[sets.size()]);
+        }
+        if( array.length == 0 ) {
+            return false;
+        }
+        ApplyTask task = new ApplyTask(array, 0, array.length);
+        if( array.length < parallelThreshold ) {
+            task.compute();
+        } else {
+            pool.invoke(task);
+        }
+        if( task.error != null ) {
+            if( task.error instanceof RuntimeException ) {
+                throw (RuntimeException)task.error;
+            }
+            if( task.error instanceof Error ) {
+                throw (Error)task.error;
+            }
+            throw new RuntimeException("Error applying changes", task.error);
+        }
+        return task.changed;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass().getSimpleName())
+            .add("sets", sets.size())
+            .add("pool", pool)
+            .toString();
+    }
+
+    /**
+     *  Splits the array in half until each task has one set.  Errors are
+     *  caught per set and collected on the way back up so that one failing
+     *  set never cancels the others.
+     */
+    private static class ApplyTask extends RecursiveTask<Boolean> {
+        private static final long serialVersionUID = 1L;
+
+        private final EntitySet[] sets;
+        private final int start;
+        private final int end;
+        private boolean changed;
+        private Throwable error;
+
+        public ApplyTask( EntitySet[] sets, int start, int end ) {
+            this.sets = sets;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Boolean compute() {
+            int count = end - start;
+            if( count == 1 ) {
+                try {
+                    changed = sets[start].applyChanges();
+                } catch( Throwable t ) {
+                    error = t;
+                }
+                return changed;
+            }
+            if( getPool() == null ) {
+                // Not running in a pool so just do them all in order
+                for( int i = start; i < end; i++ ) {
+                    try {
+                        changed |= sets[i].applyChanges();
+                    } catch( Throwable t ) {
+                        if( error == null ) {
+                            error = t;
+                        }
+                    }
+                }
+                return changed;
+            }
+            int mid = start + count / 2;
+            ApplyTask left = new ApplyTask(sets, start, mid);
+            ApplyTask right = new ApplyTask(sets, mid, end);
+            right.fork();
+            left.compute();
+            right.join();
+            changed = left.changed | right.changed;
+            error = left.error != null ? left.error : right.error;
+            return changed;
+        }
+    }
+}
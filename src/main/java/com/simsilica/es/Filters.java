@@ -34,6 +34,8 @@
 
 package com.simsilica.es;
 
+import java.util.*;
+
 import com.simsilica.es.filter.*;
 
 
@@ -55,6 +57,45 @@ public class Filters {
         return FieldFilter.create(type, field, value);
     }
 
+    /**
+     *  Creates a ComponentFilter that returns true if the specified field
+     *  of the specified component type is strictly less than the specified value.
+     *  Numeric fields are compared numerically, other fields must be Comparable
+     *  to the value.  Null field values never match.
+     */
+    public static <T extends EntityComponent> ComponentFilter<T> lessThan( Class<T> type, String field, Object value ) {
+        return RangeFilter.create(type, field, null, false, value, false);
+    }
+
+    /**
+     *  Creates a ComponentFilter that returns true if the specified field
+     *  of the specified component type is strictly greater than the specified value.
+     *  Numeric fields are compared numerically, other fields must be Comparable
+     *  to the value.  Null field values never match.
+     */
+    public static <T extends EntityComponent> ComponentFilter<T> greaterThan( Class<T> type, String field, Object value ) {
+        return RangeFilter.create(type, field, value, false, null, false);
+    }
+
+    /**
+     *  Creates a ComponentFilter that returns true if the specified field
+     *  of the specified component type is between min and max, inclusive.
+     *  Numeric fields are compared numerically, other fields must be Comparable
+     *  to the values.  Null field values never match.
+     */
+    public static <T extends EntityComponent> ComponentFilter<T> between( Class<T> type, String field, Object min, Object max ) {
+        return RangeFilter.create(type, field, min, true, max, true);
+    }
+
+    /**
+     *  Creates a ComponentFilter that returns true if the specified field
+     *  of the specified component type is equal to any of the specified values.
+     *  The value comparison is done the same as fieldEquals().
+     */
+    public static <T extends EntityComponent> ComponentFilter<T> in( Class<T> type, String field, Object... values ) {
+        return InFilter.create(type, field, values);
+    }
+
     /**
      *  Creates a ComponentFilter that returns true if any of the
      *  supplied filters are true.  The OR filter will early out and stop
@@ -76,4 +117,145 @@ public class Filters {
     public static <T extends EntityComponent> ComponentFilter<T> and( Class<T> type, ComponentFilter<? super T>... operands ) {
         return AndFilter.create(type, operands);
     }
+
+    /**
+     *  Returns a filter that matches at least every component that the updated
+     *  filter matches and the original filter does not, or null if there can't
+     *  be any such components.  Both filters are broken down into OR'ed terms
+     *  where every value of an InFilter or FieldFilter is its own field == value
+     *  term.  The result is made of the updated filter's terms that are not also
+     *  original filter terms, as an InFilter when they are all for the same field.
+     *  Any other kind of filter is only considered the same term as itself.
+     *
+     *  <p>This is used to find just the newly matching entities when an entity
+     *  set's filter changes.  Neither filter can be null.</p>
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends EntityComponent> ComponentFilter<T> difference( ComponentFilter<T> original,
+                                                                             ComponentFilter<T> updated ) {
+        Set<Object> originalTerms = new HashSet<>();
+        if( !collectTerms(original, originalTerms) ) {
+            return updated;
+        }
+        if( originalTerms.contains(ALL_TERMS) ) {
+            // The original filter matches everything
+            return null;
+        }
+        Set<Object> updatedTerms = new LinkedHashSet<>();
+        if( !collectTerms(updated, updatedTerms) || updatedTerms.contains(ALL_TERMS) ) {
+            return updated;
+        }
+        updatedTerms.removeAll(originalTerms);
+        if( updatedTerms.isEmpty() ) {
+            return null;
+        }
+
+        // See if it can be a single InFilter
+        FieldTerm first = null;
+        List<Object> values = new ArrayList<>();
+        for( Object term : updatedTerms ) {
+            if( !(term instanceof FieldTerm) ) {
+                first = null;
+                break;
+            }
+            FieldTerm ft = (FieldTerm)term;
+            if( first == null ) {
+                first = ft;
+            } else if( first.type != ft.type || !first.field.equals(ft.field) ) {
+                first = null;
+                break;
+            }
+            values.add(ft.value);
+        }
+        if( first != null ) {
+            if( values.size() == 1 ) {
+                return FieldFilter.create(first.type, first.field, values.get(0));
+            }
+            return InFilter.create(first.type, first.field, values.toArray());
+        }
+
+        List<ComponentFilter> operands = new ArrayList<>();
+        for( Object term : updatedTerms ) {
+            if( term instanceof FieldTerm ) {
+                FieldTerm ft = (FieldTerm)term;
+                operands.add(FieldFilter.create(ft.type, ft.field, ft.value));
+            } else {
+                operands.add((ComponentFilter)term);
+            }
+        }
+        return OrFilter.create(updated.getComponentType(),
+                               operands.toArray(new ComponentFilter[operands.size()]));
+    }
+
+    /**
+     *  Adds the OR'ed terms of the filter to the set, adding ALL_TERMS if
+     *  the filter matches every component of its type.  Returns false if
+     *  the filter can't be broken down into terms, in which case there is
+     *  nothing to diff against.
+     */
+    private static boolean collectTerms( ComponentFilter filter, Set<Object> terms ) {
+        if( filter instanceof OrFilter ) {
+            ComponentFilter[] operands = ((OrFilter)filter).getOperands();
+            if( operands == null ) {
+                terms.add(ALL_TERMS);
+                return true;
+            }
+            for( ComponentFilter op : operands ) {
+                if( !collectTerms(op, terms) ) {
+                    return false;
+                }
+            }
+        } else if( filter instanceof InFilter ) {
+            InFilter f = (InFilter)filter;
+            if( f.getValues() == null ) {
+                // Not set up yet, ie: serialization
+                return false;
+            }
+            for( Object value : f.getValues() ) {
+                terms.add(new FieldTerm(f.getComponentType(), f.getFieldName(), value));
+            }
+        } else if( filter instanceof FieldFilter ) {
+            FieldFilter f = (FieldFilter)filter;
+            terms.add(new FieldTerm(f.getComponentType(), f.getFieldName(), f.getValue()));
+        } else {
+            terms.add(filter);
+        }
+        return true;
+    }
+
+    // Term for a filter that matches every component of its type
+    private static final Object ALL_TERMS = new Object();
+
+    /**
+     *  A single field == value term of a filter.
+     */
+    private static class FieldTerm {
+        final Class type;
+        final String field;
+        final Object value;
+
+        public FieldTerm( Class type, String field, Object value ) {
+            this.type = type;
+            this.field = field;
+            this.value = value;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, field, value);
+        }
+
+        @Override
+        public boolean equals( Object o ) {
+            if( o == this ) {
+                return true;
+            }
+            if( !(o instanceof FieldTerm) ) {
+                return false;
+            }
+            FieldTerm other = (FieldTerm)o;
+            return type == other.type && field.equals(other.field)
+                    && Objects.equals(value, other.value);
+        }
+    }
 }
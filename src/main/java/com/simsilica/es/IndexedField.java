@@ -39,7 +39,10 @@ import java.lang.annotation.*;
 /**
  *  Identifies a field that should be indexed when indexing is
  *  available.  This is a hint provided to persistence layers as
- *  to how to store the particular component field.
+ *  to how to store the particular component field.  The in-memory
+ *  component handlers also keep value indexes for these fields so
+ *  that FieldFilter, InFilter, and RangeFilter based queries don't need
+ *  to scan every component.
  *
  *  @author    Paul Speed
  */
@@ -61,6 +61,33 @@ public interface Query {
         return all.iterator().next();
     }
 
+    /**
+     *  Returns an estimate of the number of entity IDs that execute() would
+     *  return or Integer.MAX_VALUE if the query cannot cheaply estimate it.
+     *  This is used to pick the order that the queries of a multi-component
+     *  search are run in and does not need to be exact.
+     */
+    default int estimateSize() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     *  Returns true if contains() is cheap enough to call once per candidate
+     *  entity instead of executing this query.  Defaults to false.
+     */
+    default boolean supportsContains() {
+        return false;
+    }
+
+    /**
+     *  Returns true if the specified entity would be part of this query's
+     *  results.  The default implementation executes the whole query so callers
+     *  should check supportsContains() before relying on it.
+     */
+    default boolean contains( EntityId entityId ) {
+        return execute().contains(entityId);
+    }
+
     /**
      *  If this query can be joined with the specifie query then a (possibly new)
      *  joined query will be created and returned, otherwise null is returned.
@@ -0,0 +1,97 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.base;
+
+import com.simsilica.es.*;
+
+/**
+ *  Positional access to one component type of a DenseEntitySet's entities.
+ *  Index i of the column is the component of the set's get(i) entity.  The
+ *  component's slot in the entities is resolved once when the column is
+ *  created so get() is just array access instead of the class search that
+ *  Entity.get(Class) does.
+ *
+ *  <p>A column is a live view and always reflects the set's current
+ *  entities and their order.</p>
+ *
+ *  @author    Paul Speed
+ */
+public class ComponentColumn<T extends EntityComponent> {
+
+    private final DenseEntitySet set;
+    private final Class<T> type;
+    private final int index;
+
+    protected ComponentColumn( DenseEntitySet set, Class<T> type, int index ) {
+        this.set = set;
+        this.type = type;
+        this.index = index;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     *  Returns the number of entries in this column which is always the
+     *  size of the set.
+     */
+    public int size() {
+        return set.size();
+    }
+
+    /**
+     *  Returns the component of the entity at the specified index in
+     *  the set.
+     */
+    @SuppressWarnings("unchecked")
+    public T get( int i ) {
+        return (T)set.get(i).getComponents()[index];
+    }
+
+    /**
+     *  Returns the ID of the entity at the specified index in the set.
+     */
+    public EntityId getEntityId( int i ) {
+        return set.get(i).getId();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + type.getSimpleName() + ", size=" + set.size() + "]";
+    }
+}
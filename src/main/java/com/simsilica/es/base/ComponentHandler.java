@@ -34,7 +34,7 @@
 
 package com.simsilica.es.base;
 
-import java.util.Set;
+import java.util.*;
 
 import com.simsilica.es.EntityId;
 import com.simsilica.es.EntityComponent;
@@ -52,10 +52,58 @@ public interface ComponentHandler<T extends EntityComponent> {
     public void setComponent( EntityId entityId, T component );
     public boolean removeComponent( EntityId entityId );
     public T getComponent( EntityId entityId );
+
+    /**
+     *  Returns the components for all of the specified entities that have
+     *  one, keyed by entity ID.  Entities without this component are not
+     *  in the returned map.  The default implementation calls getComponent()
+     *  for each one but handlers backed by external storage should fetch them
+     *  in as few requests as they can.
+     */
+    default Map<EntityId, T> getComponents( Collection<EntityId> entityIds ) {
+        Map<EntityId, T> results = new HashMap<>();
+        for( EntityId id : entityIds ) {
+            T value = getComponent(id);
+            if( value != null ) {
+                results.put(id, value);
+            }
+        }
+        return results;
+    }
+
+    /**
+     *  Sets the same component value for all of the specified entities.  The
+     *  default implementation calls setComponent() for each one.
+     */
+    default void setComponents( EntityId[] entityIds, T component ) {
+        for( EntityId id : entityIds ) {
+            setComponent(id, component);
+        }
+    }
+
     public Set<EntityId> getEntities();
     public Set<EntityId> getEntities( ComponentFilter filter );
     public EntityId findEntity( ComponentFilter filter );
 
+    /**
+     *  Returns true if this handler can contain components that were not set
+     *  through the owning EntityData since the handler was created, for example
+     *  components loaded from a database.  DefaultEntityData only tracks which
+     *  entities have components in handlers that return false here and always
+     *  checks the others when removing an entity.  Defaults to true.
+     */
+    default boolean hasExternalComponents() {
+        return true;
+    }
+
+    /**
+     *  Returns an estimate of the number of entities that getEntities(filter)
+     *  would return or Integer.MAX_VALUE if this handler can't cheaply tell.
+     */
+    default int estimateSize( ComponentFilter filter ) {
+        return Integer.MAX_VALUE;
+    }
+
     default Query createQuery( ComponentFilter<T> filter ) {
         return new DefaultQuery<>(this, filter);
     }
@@ -0,0 +1,72 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.base;
+
+import com.simsilica.es.EntityComponent;
+
+/**
+ *  Creates the ComponentHandler for a component type when DefaultEntityData
+ *  does not already have a handler for that type.
+ *
+ *  @author    Paul Speed
+ */
+public interface ComponentHandlerFactory {
+
+    /**
+     *  Creates handlers backed by a ConcurrentHashMap keyed by EntityId.
+     *  This is the default.
+     */
+    public static final ComponentHandlerFactory MAP_HANDLERS = new ComponentHandlerFactory() {
+            @Override
+            public <T extends EntityComponent> ComponentHandler<T> createHandler( Class<T> type ) {
+                return new MapComponentHandler<T>(type);
+            }
+        };
+
+    /**
+     *  Creates handlers backed by a concurrent open-addressing table keyed
+     *  by the primitive entity ID.
+     */
+    public static final ComponentHandlerFactory LONG_MAP_HANDLERS = new ComponentHandlerFactory() {
+            @Override
+            public <T extends EntityComponent> ComponentHandler<T> createHandler( Class<T> type ) {
+                return new LongMapComponentHandler<T>(type);
+            }
+        };
+
+    public <T extends EntityComponent> ComponentHandler<T> createHandler( Class<T> type );
+}
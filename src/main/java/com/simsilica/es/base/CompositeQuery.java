@@ -36,7 +36,9 @@
 
 package com.simsilica.es.base;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -50,8 +52,11 @@ import com.simsilica.es.EntityId;
 import com.simsilica.es.Query;
 
 /**
- *  Wraps a list of queries and executes them sequentially, intersecting
- *  the result of each with the previous.
+ *  Wraps a list of queries and returns the intersection of their results.
+ *  The child queries are ordered by their estimated sizes at execution time
+ *  so that the smallest one drives the search.  Children that support
+ *  cheap contains() checks are probed per candidate instead of being
+ *  executed, the rest are executed and intersected.
  *
  *  @author    Paul Speed
  */
@@ -64,14 +69,42 @@ public class CompositeQuery implements Query {
         this.children = children;
     }
 
+    /**
+     *  Returns the children sorted by estimated size.  The sort is stable
+     *  so children that can't estimate keep their original order.  Each
+     *  child is only asked for its estimate once since estimates can be
+     *  expensive, for example counting a range in a field index.
+     */
+    protected List<Query> plan() {
+        List<Estimate> estimates = new ArrayList<>(children.size());
+        for( Query q : children ) {
+            estimates.add(new Estimate(q));
+        }
+        estimates.sort(Comparator.comparingInt(e -> e.size));
+
+        List<Query> result = new ArrayList<>(estimates.size());
+        for( Estimate e : estimates ) {
+            result.add(e.query);
+        }
+        return result;
+    }
+
     @Override
     public Set<EntityId> execute() {
         if( children.isEmpty() ) {
             return Collections.emptySet();
         }
 
+        List<Query> plan = plan();
         Set<EntityId> results = null;
-        for( Query q : children ) {
+        List<Query> probes = new ArrayList<>();
+        for( Query q : plan ) {
+            if( results != null && q.supportsContains() ) {
+                // Check these after all of the executed sets have had
+                // a chance to reduce the candidates
+                probes.add(q);
+                continue;
+            }
             Set<EntityId> sub = q.execute();
             if( sub.isEmpty() ) {
                 return Collections.emptySet();
@@ -80,6 +113,16 @@ public class CompositeQuery implements Query {
                 results = new HashSet<>(sub);
             } else {
                 results.retainAll(sub);
+                if( results.isEmpty() ) {
+                    return results;
+                }
+            }
+        }
+
+        for( Query q : probes ) {
+            results.removeIf(id -> !q.contains(id));
+            if( results.isEmpty() ) {
+                break;
             }
         }
 
@@ -92,16 +135,71 @@ public class CompositeQuery implements Query {
             return null;
         }
         if( children.size() == 1 ) {
-            // The one case where we can potentially optimized is where there
-            // is only one child.
             return children.get(0).findFirst();
         }
-        // Otherwise, we cannot do better than executing and returning the first one.
-        Set<EntityId> all = execute();
-        if( all.isEmpty() ) {
-            return null;
+
+        List<Query> plan = plan();
+        Query driver = plan.get(0);
+
+        // Any children that can't be probed have to be executed up front
+        List<Set<EntityId>> sets = new ArrayList<>();
+        List<Query> probes = new ArrayList<>();
+        for( Query q : plan.subList(1, plan.size()) ) {
+            if( q.supportsContains() ) {
+                probes.add(q);
+            } else {
+                Set<EntityId> sub = q.execute();
+                if( sub.isEmpty() ) {
+                    return null;
+                }
+                sets.add(sub);
+            }
+        }
+
+        nextCandidate:
+        for( EntityId id : driver.execute() ) {
+            for( Set<EntityId> sub : sets ) {
+                if( !sub.contains(id) ) {
+                    continue nextCandidate;
+                }
+            }
+            for( Query q : probes ) {
+                if( !q.contains(id) ) {
+                    continue nextCandidate;
+                }
+            }
+            return id;
+        }
+        return null;
+    }
+
+    @Override
+    public int estimateSize() {
+        int result = Integer.MAX_VALUE;
+        for( Query q : children ) {
+            result = Math.min(result, q.estimateSize());
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supportsContains() {
+        for( Query q : children ) {
+            if( !q.supportsContains() ) {
+                return false;
+            }
         }
-        return all.iterator().next();
+        return true;
+    }
+
+    @Override
+    public boolean contains( EntityId entityId ) {
+        for( Query q : children ) {
+            if( !q.contains(entityId) ) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public Query join( Query other ) {
@@ -118,6 +216,16 @@ public class CompositeQuery implements Query {
             .add("children", children)
             .toString();
     }
+
+    private static class Estimate {
+        final Query query;
+        final int size;
+
+        public Estimate( Query query ) {
+            this.query = query;
+            this.size = query.estimateSize();
+        }
+    }
 }
 
 
@@ -56,6 +56,7 @@ public class DefaultEntityData implements ObservableEntityData {
     private EntityIdGenerator idGenerator;
     private StringIndex stringIndex;
     private EntityDataStats stats = new NoopEntityDataStats();
+    private ComponentHandlerFactory defaultHandlerFactory = ComponentHandlerFactory.MAP_HANDLERS;
 
     /**
      *  Keeps the unreleased entity sets so that we can give
@@ -64,6 +65,41 @@ public class DefaultEntityData implements ObservableEntityData {
     private final List<DefaultEntitySet> entitySets = new CopyOnWriteArrayList<>();
     private final List<EntityComponentListener> entityListeners = new CopyOnWriteArrayList<>();
 
+    /**
+     *  Routes component changes to only the entity sets that watch
+     *  that component type.  Kept in sync with entitySets by createSet()
+     *  and releaseEntitySet().
+     */
+    private final Map<Class, List<DefaultEntitySet>> setsByType = new ConcurrentHashMap<>();
+
+    /**
+     *  The unreleased watched entities keyed by the entity they watch
+     *  so that a change only goes to the watchers of its entity instead
+     *  of every watcher listening to every change.
+     */
+    private final Map<EntityId, List<DefaultWatchedEntity>> watchersById = new ConcurrentHashMap<>();
+
+    /**
+     *  Compact IDs for the component types whose handlers only contain
+     *  what was set through this EntityData.  The bits of entityTypes are
+     *  indexes into typesById.
+     */
+    private final Map<Class, Integer> trackedTypeIds = new ConcurrentHashMap<>();
+    private final List<Class> typesById = new CopyOnWriteArrayList<>();
+
+    /**
+     *  The component types that we can't track and so always have to
+     *  check, generally persistent types.
+     */
+    private final List<Class> untrackedTypes = new CopyOnWriteArrayList<>();
+
+    /**
+     *  For each entity, a bit set of the tracked component types that it
+     *  has.  The arrays are never modified once they are in the map so that
+     *  readers don't need to lock.
+     */
+    private final Map<EntityId, long[]> entityTypes = new ConcurrentHashMap<>();
+
     public DefaultEntityData() {
         this(new DefaultEntityIdGenerator());
     }
@@ -87,6 +123,23 @@ public class DefaultEntityData implements ObservableEntityData {
         return stats;
     }
 
+    /**
+     *  Sets the factory used to create handlers for component types that
+     *  do not already have a handler.  This only affects handlers created
+     *  after this call so it should generally be set before any components
+     *  are accessed.  Defaults to ComponentHandlerFactory.MAP_HANDLERS.
+     */
+    public void setDefaultHandlerFactory( ComponentHandlerFactory factory ) {
+        if( factory == null ) {
+            throw new IllegalArgumentException("Factory cannot be null");
+        }
+        this.defaultHandlerFactory = factory;
+    }
+
+    public ComponentHandlerFactory getDefaultHandlerFactory() {
+        return defaultHandlerFactory;
+    }
+
     protected void setIdGenerator( EntityIdGenerator idGenerator ) {
         this.idGenerator = idGenerator;
     }
@@ -96,7 +149,87 @@ public class DefaultEntityData implements ObservableEntityData {
     }
 
     protected <T extends EntityComponent> void registerComponentHandler( Class<T> type, ComponentHandler<T> handler ) {
-        handlers.put(type, handler);
+        synchronized( this ) {
+            handlers.put(type, handler);
+            updateTracking(type, handler);
+        }
+    }
+
+    /**
+     *  Sets up the component type tracking for a newly registered handler.
+     *  Called while synchronized on this.
+     */
+    private void updateTracking( Class type, ComponentHandler handler ) {
+        if( handler.hasExternalComponents() ) {
+            trackedTypeIds.remove(type);
+            if( !untrackedTypes.contains(type) ) {
+                untrackedTypes.add(type);
+            }
+        } else {
+            untrackedTypes.remove(type);
+            if( !trackedTypeIds.containsKey(type) ) {
+                int id = typesById.indexOf(type);
+                if( id < 0 ) {
+                    id = typesById.size();
+                    typesById.add(type);
+                }
+                trackedTypeIds.put(type, id);
+            }
+        }
+    }
+
+    private void markType( EntityId entityId, int typeId ) {
+        int word = typeId >>> 6;
+        long mask = 1L << typeId;
+        long[] bits = entityTypes.get(entityId);
+        if( bits != null && word < bits.length && (bits[word] & mask) != 0 ) {
+            // Already set, the common case for component updates
+            return;
+        }
+        entityTypes.compute(entityId, (k, old) -> {
+                long[] result = old == null ? new long[word + 1]
+                                            : Arrays.copyOf(old, Math.max(old.length, word + 1));
+                result[word] |= mask;
+                return result;
+            });
+    }
+
+    private void clearType( EntityId entityId, int typeId ) {
+        int word = typeId >>> 6;
+        long mask = 1L << typeId;
+        entityTypes.computeIfPresent(entityId, (k, old) -> {
+                if( word >= old.length || (old[word] & mask) == 0 ) {
+                    return old;
+                }
+                long[] result = old.clone();
+                result[word] &= ~mask;
+                for( long l : result ) {
+                    if( l != 0 ) {
+                        return result;
+                    }
+                }
+                return null;
+            });
+    }
+
+    /**
+     *  Returns the component types that the specified entity currently has
+     *  components for.  Types whose handlers can contain components that
+     *  weren't set through this EntityData (for example, persistent components)
+     *  are checked directly with getComponent().
+     */
+    @SuppressWarnings("unchecked")
+    public Set<Class<? extends EntityComponent>> getComponentTypes( EntityId entityId ) {
+        Set<Class<? extends EntityComponent>> results = new HashSet<>();
+        for( Class type : getTrackedTypes(entityId) ) {
+            results.add(type);
+        }
+        for( Class type : untrackedTypes ) {
+            if( getHandler(type).getComponent(entityId) != null ) {
+                results.add(type);
+            }
+        }
+        return results;
     }
 
     @Override
@@ -112,6 +245,30 @@ public class DefaultEntityData implements ObservableEntityData {
         entityListeners.remove(l);
     }
 
+    /**
+     *  Called by DefaultWatchedEntity to start receiving the changes
+     *  for its entity.
+     */
+    protected void addWatcher( DefaultWatchedEntity watcher ) {
+        watchersById.compute(watcher.getId(), (k, list) -> {
+            if( list == null ) {
+                list = new CopyOnWriteArrayList<>();
+            }
+            list.add(watcher);
+            return list;
+        });
+    }
+
+    /**
+     *  Called by DefaultWatchedEntity when it is released.
+     */
+    protected void removeWatcher( DefaultWatchedEntity watcher ) {
+        watchersById.computeIfPresent(watcher.getId(), (k, list) -> {
+            list.remove(watcher);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
     @Override
     public void close() {
     }
@@ -121,21 +278,98 @@ public class DefaultEntityData implements ObservableEntityData {
         return new EntityId(idGenerator.nextEntityId());
     }
 
+    /**
+     *  Reserves all of the IDs from the id generator at once, writes each
+     *  template component to its handler as one block, and then delivers
+     *  the changes as a single batch.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public EntityId[] createEntities( int count, EntityComponent... template ) {
+        if( count < 0 ) {
+            throw new IllegalArgumentException("Count cannot be negative:" + count);
+        }
+        for( EntityComponent c : template ) {
+            if( c == null ) {
+                throw new IllegalArgumentException("Template components cannot be null.");
+            }
+        }
+        long[] rawIds = idGenerator.nextEntityIds(count);
+        EntityId[] results = new EntityId[count];
+        for( int i = 0; i < count; i++ ) {
+            results[i] = new EntityId(rawIds[i]);
+        }
+
+        // All of the new entities have the same tracked types
+        long[] bits = new long[0];
+        for( EntityComponent c : template ) {
+            ComponentHandler handler = getHandler(c.getClass());
+            handler.setComponents(results, c);
+            Integer typeId = trackedTypeIds.get(c.getClass());
+            if( typeId != null ) {
+                int word = typeId >>> 6;
+                if( word >= bits.length ) {
+                    bits = Arrays.copyOf(bits, word + 1);
+                }
+                bits[word] |= 1L << typeId;
+            }
+        }
+        if( bits.length > 0 ) {
+            for( EntityId id : results ) {
+                // The same array can be shared because they are never
+                // modified once in the map.
+                entityTypes.put(id, bits);
+            }
+        }
+
+        List<EntityChange> changes = new ArrayList<>(count * template.length);
+        for( EntityId id : results ) {
+            for( EntityComponent c : template ) {
+                changes.add(new EntityChange(id, c));
+            }
+        }
+        entityChanges(changes);
+        return results;
+    }
+
     @Override
+    @SuppressWarnings("unchecked")
     public void removeEntity( EntityId entityId ) {
         if( log.isTraceEnabled() ) {
             log.trace("removeEntity(" + entityId + ")");
         }
-        // Note: because we only add the ComponentHandlers when
+        // Remove the components that we know it has
+        List<EntityChange> removes = new ArrayList<>();
+        for( Class type : getTrackedTypes(entityId) ) {
+            removes.add(new EntityChange(entityId, type));
+        }
+
+        // Note: because we only add the untracked ComponentHandlers when
         // we encounter the component types... it's possible that
-        // the entity stays orphaned with a few components if we
+        // the entity stays orphaned with a few persistent components if we
         // have never accessed any of them.  SqlEntityData should
         // probably specifically be given types someday.  FIXME
+        for( Class type : untrackedTypes ) {
+            removes.add(new EntityChange(entityId, type));
+        }
 
-        // Remove all of its components
-        for( Class<? extends EntityComponent> c : handlers.keySet() ) {
-            removeComponent(entityId, c);
+        // Applied as one batch so that the entity sets see all of
+        // the removes together.
+        applyBatch(removes);
+    }
+
+    private List<Class> getTrackedTypes( EntityId entityId ) {
+        long[] bits = entityTypes.get(entityId);
+        if( bits == null ) {
+            return Collections.emptyList();
+        }
+        List<Class> results = new ArrayList<>();
+        for( int word = 0; word < bits.length; word++ ) {
+            for( long l = bits[word]; l != 0; l &= l - 1 ) {
+                results.add(typesById.get((word << 6) + Long.numberOfTrailingZeros(l)));
+            }
         }
+        return results;
     }
 
     @Override
@@ -146,10 +380,11 @@ public class DefaultEntityData implements ObservableEntityData {
     /**
      *  When no specific type handler exists, this attempts to
      *  find an appropriate handler.  Default implementation returns
-     *  a new MapComponentHandler.
+     *  a handler from the default handler factory, a new MapComponentHandler
+     *  unless configured otherwise.
      */
     protected <T extends EntityComponent> ComponentHandler<T> lookupDefaultHandler( Class<T> type ) {
-        return new MapComponentHandler<T>(type);
+        return defaultHandlerFactory.createHandler(type);
     }
 
     /**
@@ -176,6 +411,7 @@ public class DefaultEntityData implements ObservableEntityData {
                 if( result == null ) {
                     result = lookupDefaultHandler(type);
                     handlers.put(type, result);
+                    updateTracking(type, result);
                 }
             }
         }
@@ -191,18 +427,70 @@ public class DefaultEntityData implements ObservableEntityData {
         return handler.getComponent(entityId);
     }
 
+    @Override
+    public <T extends EntityComponent> Map<EntityId, T> getComponents( Collection<EntityId> entityIds,
+                                                                       Class<T> type ) {
+        if( entityIds.isEmpty() ) {
+            return new HashMap<>();
+        }
+        ComponentHandler<T> handler = getHandler(type);
+        return handler.getComponents(entityIds);
+    }
+
     @Override
     public <T extends EntityComponent> void setComponent( EntityId entityId, T component ) {
         if( entityId == null ) {
             throw new IllegalArgumentException("EntityId cannot be null.");
         }
-        ComponentHandler<T> handler = getHandler(component.getClass());
-        handler.setComponent(entityId, component);
+        writeComponent(entityId, component);
 
         // Can now update the entity sets that care
         entityChange(new EntityChange(entityId, component));
     }
 
+    /**
+     *  Writes the component to its handler and updates the type tracking
+     *  without sending any change events.
+     */
+    @SuppressWarnings("unchecked")
+    private void writeComponent( EntityId entityId, EntityComponent component ) {
+        ComponentHandler handler = getHandler(component.getClass());
+        handler.setComponent(entityId, component);
+        Integer typeId = trackedTypeIds.get(component.getClass());
+        if( typeId != null ) {
+            markType(entityId, typeId);
+            // If another thread removed the component and already did its
+            // own check before we set the bit then we need to clear it.
+            if( handler.getComponent(entityId) == null ) {
+                clearType(entityId, typeId);
+                // ...unless it was set again in the meantime
+                if( handler.getComponent(entityId) != null ) {
+                    markType(entityId, typeId);
+                }
+            }
+        }
+    }
+
+    /**
+     *  Removes the component from its handler and updates the type tracking
+     *  without sending any change events.  Returns true if the component
+     *  existed.
+     */
+    private boolean deleteComponent( EntityId entityId, Class type ) {
+        ComponentHandler handler = getHandler(type);
+        boolean result = handler.removeComponent(entityId);
+        Integer typeId = trackedTypeIds.get(type);
+        if( result && typeId != null ) {
+            clearType(entityId, typeId);
+            // If another thread set the component again before we
+            // cleared the bit then we need to put it back.
+            if( handler.getComponent(entityId) != null ) {
+                markType(entityId, typeId);
+            }
+        }
+        return result;
+    }
+
     @Override
     public <T extends EntityComponent> boolean removeComponent( EntityId entityId, Class<T> type ) {
         if( entityId == null ) {
@@ -211,8 +499,7 @@ public class DefaultEntityData implements ObservableEntityData {
         if( log.isTraceEnabled() ) {
             log.trace("removeComponent(" + entityId + ", " + type + ")");
         }
-        ComponentHandler handler = getHandler(type);
-        boolean result = handler.removeComponent(entityId);
+        boolean result = deleteComponent(entityId, type);
 
         // 2022-11-06 - Adding a check based on problem report #27 which
         // indicates that we end up adding an EntityChange for every component type
@@ -230,9 +517,46 @@ public class DefaultEntityData implements ObservableEntityData {
     @Override
     @SuppressWarnings("unchecked")
     public void removeComponents( EntityId entityId, Class... types ) {
-        for (Class type : types) {
-            removeComponent(entityId, type);
+        batch().removeComponents(entityId, types).commit();
+    }
+
+    /**
+     *  Returns a ComponentBatch that writes all of its components to
+     *  the handlers before sending any of the changes to the entity sets
+     *  and listeners.
+     */
+    @Override
+    public ComponentBatch batch() {
+        return new ComponentBatch(this) {
+                @Override
+                protected void apply( List<EntityChange> changes ) {
+                    applyBatch(changes);
+                }
+            };
+    }
+
+    /**
+     *  Applies all of the component sets and removes in the specified list
+     *  to the component handlers and then delivers the resulting changes.
+     *  Each entity set receives its changes as one unit so that it never
+     *  sees only part of the batch.
+     */
+    protected void applyBatch( List<EntityChange> changes ) {
+        if( log.isTraceEnabled() ) {
+            log.trace("applyBatch(" + changes + ")");
+        }
+        List<EntityChange> applied = new ArrayList<>(changes.size());
+        for( EntityChange change : changes ) {
+            if( change.getComponent() != null ) {
+                writeComponent(change.getEntityId(), change.getComponent());
+                applied.add(change);
+            } else if( deleteComponent(change.getEntityId(), change.getComponentType()) ) {
+                // Same as removeComponent(), removes of components that
+                // didn't exist don't generate changes.
+                applied.add(change);
+            }
         }
+        entityChanges(applied);
     }
 
     protected EntityId findSingleEntity( ComponentFilter filter ) {
@@ -248,20 +572,44 @@ public class DefaultEntityData implements ObservableEntityData {
     }
 
     protected DefaultEntitySet createSet( EntityCriteria criteria ) {
-        DefaultEntitySet set = new DefaultEntitySet(this, criteria);
+        return registerSet(new DefaultEntitySet(this, criteria));
+    }
+
+    /**
+     *  Adds the specified set to the sets that will receive changes.
+     */
+    protected <T extends DefaultEntitySet> T registerSet( T set ) {
         entitySets.add(set);
+        addSetRoutes(set);
         return set;
     }
 
+    /**
+     *  Adds the specified set to the type routing table so that it will
+     *  receive changes for the component types it watches.
+     */
+    protected void addSetRoutes( DefaultEntitySet set ) {
+        for( Class type : set.getTypes() ) {
+            setsByType.computeIfAbsent(type, k -> new CopyOnWriteArrayList<>()).add(set);
+        }
+    }
+
+    protected void removeSetRoutes( DefaultEntitySet set ) {
+        for( Class type : set.getTypes() ) {
+            List<DefaultEntitySet> list = setsByType.get(type);
+            if( list != null ) {
+                list.remove(set);
+            }
+        }
+    }
+
     protected void replace( Entity e, EntityComponent oldValue, EntityComponent newValue ) {
         setComponent(e.getId(), newValue);
     }
 
     @Override
     public void setComponents( EntityId entityId, EntityComponent... components ) {
-        for( EntityComponent c : components ) {
-            setComponent(entityId, c);
-        }
+        batch().setComponents(entityId, components).commit();
     }
 
     @Override
@@ -381,32 +729,131 @@ public class DefaultEntityData implements ObservableEntityData {
         return results;
     }
 
+    /**
+     *  Returns an entity set like getEntities() but that keeps its entities
+     *  packed in an array for garbage-free iteration.
+     */
+    @SuppressWarnings("unchecked") // because Java doesn't like generic varargs
+    public DenseEntitySet getDenseEntities( Class... types ) {
+        return getDenseEntities(new EntityCriteria().add(types));
+    }
+
+    /**
+     *  Returns an entity set like getEntities() but that keeps its entities
+     *  packed in an array for garbage-free iteration.
+     */
+    public DenseEntitySet getDenseEntities( ComponentFilter filter, Class... types ) {
+        return getDenseEntities(new EntityCriteria().set(filter, types));
+    }
+
+    /**
+     *  Returns an entity set like getEntities() but that keeps its entities
+     *  packed in an array for garbage-free iteration.
+     */
+    public DenseEntitySet getDenseEntities( EntityCriteria criteria ) {
+        DenseEntitySet results = registerSet(new DenseEntitySet(this, criteria));
+        results.loadEntities(false);
+        return results;
+    }
+
     @Override
     @SuppressWarnings("unchecked")  // because Java doesn't like generic varargs
     public WatchedEntity watchEntity( EntityId id, Class... types ) {
         return new DefaultWatchedEntity(this, id, types);
     }
 
+    private void notifyWatchers( EntityChange change ) {
+        List<DefaultWatchedEntity> watchers = watchersById.get(change.getEntityId());
+        if( watchers == null ) {
+            return;
+        }
+        for( DefaultWatchedEntity watcher : watchers ) {
+            watcher.addChange(change);
+        }
+    }
+
     protected void releaseEntitySet( EntitySet entities ) {
-        entitySets.remove((DefaultEntitySet)entities);
+        if( entitySets.remove((DefaultEntitySet)entities) ) {
+            removeSetRoutes((DefaultEntitySet)entities);
+        }
     }
 
     protected void entityChange( EntityChange change ) {
 
+        // Listeners don't declare the types they are interested in
+        // so they still get everything.
         for( EntityComponentListener l : entityListeners ) {
             l.componentChange(change);
         }
 
-        for( DefaultEntitySet set : entitySets ) {
+        notifyWatchers(change);
+
+        // Only the sets that watch this type need to see the change
+        List<DefaultEntitySet> sets = setsByType.get(change.getComponentType());
+        if( sets == null ) {
+            return;
+        }
+        for( DefaultEntitySet set : sets ) {
             set.entityChange(change);
         }
     }
 
+    /**
+     *  Delivers a batch of changes to the listeners and to the entity sets
+     *  that watch the changed types.  Each set gets all of its changes in
+     *  one call.
+     */
+    protected void entityChanges( List<EntityChange> changes ) {
+        if( changes.isEmpty() ) {
+            return;
+        }
+        if( changes.size() == 1 ) {
+            entityChange(changes.get(0));
+            return;
+        }
+
+        for( EntityComponentListener l : entityListeners ) {
+            for( EntityChange change : changes ) {
+                l.componentChange(change);
+            }
+        }
+
+        if( !watchersById.isEmpty() ) {
+            for( EntityChange change : changes ) {
+                notifyWatchers(change);
+            }
+        }
+
+        Map<DefaultEntitySet, List<EntityChange>> perSet = new IdentityHashMap<>();
+        for( EntityChange change : changes ) {
+            List<DefaultEntitySet> sets = setsByType.get(change.getComponentType());
+            if( sets == null ) {
+                continue;
+            }
+            for( DefaultEntitySet set : sets ) {
+                perSet.computeIfAbsent(set, k -> new ArrayList<>()).add(change);
+            }
+        }
+        for( Map.Entry<DefaultEntitySet, List<EntityChange>> e : perSet.entrySet() ) {
+            e.getKey().entityChanges(e.getValue());
+        }
+    }
+
     private class EntitySetsReporter implements Reporter {
 
         @Override
         public void printReport( String type, java.io.PrintWriter out ) {
             out.println("EntityData->EntitySets:" + entitySets.size());
+            int pending = 0;
+            int highWater = 0;
+            int overflows = 0;
+            for( DefaultEntitySet set : entitySets ) {
+                pending += set.getPendingChangeCount();
+                highWater = Math.max(highWater, set.getPendingChangeHighWaterMark());
+                overflows += set.getOverflowCount();
+            }
+            out.println("  pending changes:" + pending + "  max high water:" + highWater
+                        + "  overflows:" + overflows);
         }
     }
 }
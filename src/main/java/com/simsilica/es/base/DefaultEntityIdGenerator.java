@@ -59,5 +59,18 @@ public class DefaultEntityIdGenerator implements EntityIdGenerator {
     public long nextEntityId() {
         return entityId.getAndIncrement();
     } 
+
+    @Override
+    public long[] nextEntityIds( int count ) {
+        if( count < 0 ) {
+            throw new IllegalArgumentException("Count cannot be negative:" + count);
+        }
+        long first = entityId.getAndAdd(count);
+        long[] results = new long[count];
+        for( int i = 0; i < count; i++ ) {
+            results[i] = first + i;
+        }
+        return results;
+    }
 }
 
@@ -35,7 +35,9 @@
 package com.simsilica.es.base;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,12 +66,12 @@ public class DefaultEntitySet extends AbstractSet<Entity>
      */
     protected static final RemovedComponent REMOVED_COMPONENT = new RemovedComponent();
 
-    // Concurrent hash map because the change set accumulation
-    // checks the map for entity ID existence.
-    private final Map<EntityId,Entity> entities = new HashMap<>();
+    // Created on first use so that subclasses that keep their own
+    // entity storage never allocate it.
+    private Map<EntityId,Entity> entities;
 
-    private final ConcurrentLinkedQueue<EntityChange> changes
-                    = new ConcurrentLinkedQueue<>();
+    // Pending changes coalesced by entity and component type
+    private final EntityChangeBuffer changes;
 
     private final EntityData ed;
 
@@ -82,13 +84,41 @@ public class DefaultEntitySet extends AbstractSet<Entity>
     private ComponentFilter[] filters;
     private boolean filtersChanged = false;
 
+    // The filters that the current members were loaded with.  When the
+    // filters change, only entities that match the new filters but not
+    // these need to be queried.
+    private ComponentFilter[] loadedFilters;
+
     protected Transaction transaction = new Transaction();
-    private final Set<Entity> addedEntities = new HashSet<>();
-    private final Set<Entity> changedEntities = new HashSet<>();
-    private final Set<Entity> removedEntities = new HashSet<>();
+    // Cleared and refilled every applyChanges() so they are kept in
+    // sets that don't allocate once they've grown
+    private final EntityHashSet<Entity> addedEntities = new EntityHashSet<>();
+    private final EntityHashSet<Entity> changedEntities = new EntityHashSet<>();
+    private final EntityHashSet<Entity> removedEntities = new EntityHashSet<>();
+
+    // Passes drained changes to the transaction without creating a new
+    // lambda every applyChanges()
+    private Set<EntityChange> drainUpdates;
+    private final Consumer<EntityChange> drainer
+                = change -> transaction.addChange(change, drainUpdates);
+
+    // The most changes the current applyChanges() call will drain and
+    // how many it actually did
+    private int changeLimit = Integer.MAX_VALUE;
+    private int drainedCount;
+
+    // Running average of the time it takes to apply one change, used
+    // to size the slices for time-budgeted applyChanges() calls
+    private double nanosPerChange;
 
     private boolean released = false;
 
+    // Only non-null when interest filtering is enabled.  The entities
+    // that are in the set or being considered for it in the current
+    // transaction.
+    private volatile Set<EntityId> interest;
+    private volatile InterestState interestState;
+
     /**
      *  Kept for compatibility with any custom subclasses that might be out in
      *  the wild.
@@ -105,6 +135,7 @@ public class DefaultEntitySet extends AbstractSet<Entity>
         this.criteria = criteria.clone();
         this.types = criteria.toTypeArray();
         this.filters = criteria.toFilterArray();
+        this.changes = new EntityChangeBuffer(types);
     }
 
     protected EntityCriteria getCriteria() {
@@ -126,22 +157,19 @@ public class DefaultEntitySet extends AbstractSet<Entity>
     /**
      *  Called to have the entity set load its initial set of
      *  data.  This is called during creation (but not construction)
-     *  and when the filter is reset.
+     *  and when the filter is reset.  On reload, only the entities that
+     *  could match the new filters but not the old ones are queried.
      */
     protected void loadEntities( boolean reload ) {
 
         //Set<EntityId> idSet = ed.findEntities(mainFilter, types);
-        Set<EntityId> idSet = ed.findEntities(criteria);
+        Set<EntityId> idSet = reload ? findNewMatches() : ed.findEntities(criteria);
+        loadedFilters = filters;
         if( idSet.isEmpty() ) {
             return;
         }
 
-        // Note: we do a full component loop here just to
-        // reuse the EntityComponent[] buffer.  We could have
-        // just as easily called ed.getEntity() for each ID.
-
-        // Now we have the info needed to build the entity set
-        EntityComponent[] buffer = new EntityComponent[types.length];
+        List<EntityId> loading = new ArrayList<>(idSet.size());
         for( EntityId id : idSet ) {
             // If we already have the entity then it is not a new
             // add and we'll ignore it.  This means that some entities
@@ -152,12 +180,28 @@ public class DefaultEntitySet extends AbstractSet<Entity>
                 continue;
             }
 
-            for( int i = 0; i < buffer.length; i++ ) {
-                buffer[i] = ed.getComponent(id, types[i]);
+            // Must be interested before we read so that we don't miss
+            // changes made after the read
+            addInterest(id);
+            loading.add(id);
+        }
+        if( loading.isEmpty() ) {
+            return;
+        }
+
+        // Retrieve the components one type at a time for all of the
+        // entities so that the EntityData can do it in bulk
+        EntityComponent[][] values = new EntityComponent[loading.size()][types.length];
+        for( int i = 0; i < types.length; i++ ) {
+            Map<EntityId, ? extends EntityComponent> map = ed.getComponents(loading, types[i]);
+            for( int j = 0; j < values.length; j++ ) {
+                values[j][i] = map.get(loading.get(j));
             }
+        }
 
-            // Now create the entity
-            DefaultEntity e = new DefaultEntity(ed, id, buffer.clone(), types);
+        // Now we have the info needed to build the entity set
+        for( int j = 0; j < values.length; j++ ) {
+            DefaultEntity e = new DefaultEntity(ed, loading.get(j), values[j], types);
             if( add(e) && reload ) {
                 addedEntities.add(e);
             }
@@ -170,6 +214,52 @@ public class DefaultEntitySet extends AbstractSet<Entity>
         // they come in while we build the entity set.
     }
 
+    /**
+     *  Returns the IDs of the entities that might match the current filters
+     *  but not the filters the set was last loaded with.  If every filter
+     *  change only narrows the filters then nothing needs to be queried.
+     *  Otherwise, there is a query for each filter that changed using just
+     *  the part of the new filter that the old one did not have, which for
+     *  the common field and value filters can be resolved by field indexes.
+     */
+    @SuppressWarnings("unchecked")
+    protected Set<EntityId> findNewMatches() {
+        ComponentFilter[] previous = loadedFilters;
+        if( previous == null ) {
+            return ed.findEntities(criteria);
+        }
+        Set<EntityId> result = Collections.emptySet();
+        for( int i = 0; i < types.length; i++ ) {
+            ComponentFilter delta;
+            if( previous[i] == null ) {
+                // Anything matching the new filter already matched before
+                continue;
+            } else if( filters[i] == null ) {
+                // The filter was removed and there is no way to query for
+                // only what the old filter didn't match
+                return ed.findEntities(criteria);
+            } else {
+                delta = Filters.difference(previous[i], filters[i]);
+                if( delta == null ) {
+                    continue;
+                }
+            }
+            EntityCriteria query = criteria.clone();
+            query.setFilter((Class)types[i], delta);
+            Set<EntityId> ids = ed.findEntities(query);
+            if( result.isEmpty() ) {
+                result = ids;
+            } else if( !ids.isEmpty() ) {
+                result = new HashSet<>(result);
+                result.addAll(ids);
+            }
+        }
+        if( log.isTraceEnabled() ) {
+            log.trace("Filter change found " + result.size() + " new candidates for:" + this);
+        }
+        return result;
+    }
+
     /**
      *  Removes entities from the set that no longer match the
      *  set's criteria.  This will update the removedEntities
@@ -186,6 +276,137 @@ public class DefaultEntitySet extends AbstractSet<Entity>
         }
     }
 
+    /**
+     *  Reconciles the set's entities against a full query of the current
+     *  data.  This is used when pending changes have been dropped because
+     *  the set went too long without applyChanges() being called.  Entities
+     *  that no longer match are removed, new matches are added, and entities
+     *  with different components are updated and marked as changed.  If an
+     *  updates set is supplied then a change is added to it for every
+     *  component that was different.
+     */
+    protected void resyncEntities( Set<EntityChange> updates ) {
+        if( log.isDebugEnabled() ) {
+            log.debug("Resyncing entity set:" + this);
+        }
+        Set<EntityId> idSet = ed.findEntities(criteria);
+        loadedFilters = filters;
+
+        for( Iterator<Entity> it = iterator(); it.hasNext(); ) {
+            Entity e = it.next();
+            if( !idSet.contains(e.getId()) ) {
+                it.remove();
+                removedEntities.add(e);
+                onEntityPurged(e);
+            }
+        }
+
+        if( idSet.isEmpty() ) {
+            return;
+        }
+
+        // Must be interested before we read so that we don't miss
+        // changes made after the read
+        List<EntityId> loading = new ArrayList<>(idSet);
+        for( EntityId id : loading ) {
+            addInterest(id);
+        }
+
+        // Retrieve the components one type at a time for all of the
+        // entities so that the EntityData can do it in bulk
+        EntityComponent[][] values = new EntityComponent[loading.size()][types.length];
+        for( int i = 0; i < types.length; i++ ) {
+            Map<EntityId, ? extends EntityComponent> map = ed.getComponents(loading, types[i]);
+            for( int j = 0; j < values.length; j++ ) {
+                values[j][i] = map.get(loading.get(j));
+            }
+        }
+
+        for( int j = 0; j < values.length; j++ ) {
+            EntityId id = loading.get(j);
+            EntityComponent[] buffer = values[j];
+            boolean complete = true;
+            for( int i = 0; i < buffer.length; i++ ) {
+                if( buffer[i] == null ) {
+                    complete = false;
+                    break;
+                }
+            }
+
+            DefaultEntity existing = (DefaultEntity)getEntity(id);
+            if( !complete ) {
+                // Changed between the query and now.  Its events will
+                // be in the change buffer.
+                if( existing == null ) {
+                    removeInterest(id);
+                }
+                continue;
+            }
+            if( existing == null ) {
+                DefaultEntity e = new DefaultEntity(ed, id, buffer, types);
+                if( add(e) ) {
+                    addedEntities.add(e);
+                }
+                continue;
+            }
+
+            EntityComponent[] array = existing.getComponents();
+            boolean changed = false;
+            for( int i = 0; i < array.length; i++ ) {
+                if( Objects.equals(array[i], buffer[i]) ) {
+                    continue;
+                }
+                array[i] = buffer[i];
+                changed = true;
+                if( updates != null ) {
+                    updates.add(new EntityChange(id, buffer[i]));
+                }
+            }
+            if( changed ) {
+                changedEntities.add(existing);
+            }
+        }
+    }
+
+    /**
+     *  Sets the maximum number of pending changes this set will hold between
+     *  applyChanges() calls.  If it is exceeded then the pending changes are
+     *  dropped and the next applyChanges() does a full resync against the
+     *  EntityData instead.  This keeps a set that is not being updated from
+     *  growing without bound.  0 or less means unbounded, which is the default.
+     */
+    public void setMaxPendingChanges( int max ) {
+        changes.setMaxSize(max);
+    }
+
+    public int getMaxPendingChanges() {
+        return changes.getMaxSize();
+    }
+
+    /**
+     *  Returns the number of changes that have been received but not yet
+     *  applied.
+     */
+    public int getPendingChangeCount() {
+        return changes.size();
+    }
+
+    /**
+     *  Returns the largest number of changes that have been pending at one
+     *  time for this set.
+     */
+    public int getPendingChangeHighWaterMark() {
+        return changes.getHighWaterMark();
+    }
+
+    /**
+     *  Returns the number of times this set has dropped its pending changes
+     *  because it exceeded the max pending changes.
+     */
+    public int getOverflowCount() {
+        return changes.getOverflowCount();
+    }
+
     /**
      *  Subclasses can use this for specialized 'purge' processing.
      */
@@ -291,19 +512,26 @@ public class DefaultEntitySet extends AbstractSet<Entity>
         filtersChanged = true;
     }
 
+    private Map<EntityId,Entity> entityMap() {
+        if( entities == null ) {
+            entities = new HashMap<>();
+        }
+        return entities;
+    }
+
     @Override
     public boolean containsId( EntityId id ) {
-        return entities.containsKey(id);
+        return entities != null && entities.containsKey(id);
     }
 
     @Override
     public Set<EntityId> getEntityIds() {
-        return entities.keySet();
+        return entityMap().keySet();
     }
 
     @Override
     public Entity getEntity( EntityId id ) {
-        return entities.get(id);
+        return entities == null ? null : entities.get(id);
     }
 
     @Override
@@ -313,7 +541,7 @@ public class DefaultEntitySet extends AbstractSet<Entity>
 
     @Override
     public int size() {
-        return entities.size();
+        return entities == null ? 0 : entities.size();
     }
 
     @Override
@@ -323,7 +551,13 @@ public class DefaultEntitySet extends AbstractSet<Entity>
 
     @Override
     public void clear() {
-        entities.clear();
+        if( entities != null ) {
+            entities.clear();
+        }
+        Set<EntityId> interest = this.interest;
+        if( interest != null ) {
+            interest.clear();
+        }
     }
 
     @Override
@@ -331,25 +565,46 @@ public class DefaultEntitySet extends AbstractSet<Entity>
         // Note: this may come back to bite me later but we
         //       return that we don't add it but we actually do replace
         //       the old value.
-        return entities.put(e.getId(), e) == null;
+        addInterest(e.getId());
+        return putEntity(e) == null;
     }
 
     protected Entity remove( EntityId id ) {
-        return entities.remove(id);
+        removeInterest(id);
+        return removeEntity(id);
+    }
+
+    /**
+     *  Stores the entity in this set's entity storage, replacing and
+     *  returning any existing entity with the same ID.  Subclasses that
+     *  keep their own storage override this along with removeEntity(),
+     *  getEntity(), containsId(), getEntityIds(), size(), iterator(),
+     *  and clear().
+     */
+    protected Entity putEntity( Entity e ) {
+        return entityMap().put(e.getId(), e);
+    }
+
+    /**
+     *  Removes and returns the entity with the specified ID from this
+     *  set's entity storage.
+     */
+    protected Entity removeEntity( EntityId id ) {
+        return entities == null ? null : entities.remove(id);
     }
 
     @Override
     public boolean remove( Object e ) {
         if( !(e instanceof Entity) )
             return false;
-        return entities.remove(((Entity)e).getId()) != null;
+        return remove(((Entity)e).getId()) != null;
     }
 
     @Override
     public boolean contains( Object e ) {
         if( !(e instanceof Entity) )
             return false;
-        return entities.containsKey(((Entity)e).getId());
+        return containsId(((Entity)e).getId());
     }
 
     /**
@@ -414,14 +669,76 @@ public class DefaultEntitySet extends AbstractSet<Entity>
         return applyChanges(updates, true);
     }
 
+    /**
+     *  Applies at most maxChanges of the accumulated changes and returns
+     *  true if there were changes.  All of the pending changes for an entity
+     *  are always applied together so slightly more than maxChanges may be
+     *  applied.  The added, changed, and removed sets only reflect the
+     *  changes applied by this call.  hasPendingChanges() will return true
+     *  if there is still more to apply.
+     */
+    @Override
+    public boolean applyChanges( int maxChanges ) {
+        if( maxChanges <= 0 ) {
+            throw new IllegalArgumentException("maxChanges must be greater than 0:" + maxChanges);
+        }
+        changeLimit = maxChanges;
+        try {
+            return applyChanges(null, true);
+        } finally {
+            changeLimit = Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     *  Applies as many of the accumulated changes as are likely to fit in
+     *  the specified amount of time and returns true if there were changes.
+     *  The number of changes is estimated from how long previous calls took
+     *  per change so a single call can still go over budget.  Otherwise, this
+     *  works the same as applyChanges(int).
+     */
+    @Override
+    public boolean applyChanges( long time, TimeUnit unit ) {
+        long budget = unit.toNanos(time);
+        int limit;
+        if( nanosPerChange <= 0 ) {
+            // No estimate yet so start small and measure
+            limit = 256;
+        } else {
+            limit = (int)Math.max(1, Math.min(Integer.MAX_VALUE, budget / nanosPerChange));
+        }
+        long start = System.nanoTime();
+        boolean result = applyChanges(limit);
+        long elapsed = System.nanoTime() - start;
+        if( drainedCount > 0 ) {
+            double sample = (double)elapsed / drainedCount;
+            nanosPerChange = nanosPerChange <= 0 ? sample : nanosPerChange * 0.75 + sample * 0.25;
+        }
+        return result;
+    }
+
+    /**
+     *  Returns true if there are changes waiting to be applied, including
+     *  ones left over from a limited applyChanges() call.
+     */
+    @Override
+    public boolean hasPendingChanges() {
+        return !changes.isEmpty() || filtersChanged;
+    }
+
     protected boolean buildTransactionChanges( Set<EntityChange> updates ) {
 
+        drainedCount = 0;
         if( changes.isEmpty() )
             return false;
 
-        EntityChange change;
-        while( (change = changes.poll()) != null ) {
-            transaction.addChange(change, updates);
+        // The buffer will not give us only part of a batch
+        // added by entityChanges()
+        drainUpdates = updates;
+        try {
+            drainedCount = changes.drain(drainer, changeLimit);
+        } finally {
+            drainUpdates = null;
         }
         return true;
     }
@@ -458,16 +775,34 @@ public class DefaultEntitySet extends AbstractSet<Entity>
             return hasChanges();
         }
 
+        boolean resynced = changes.checkOverflow();
+        if( resynced ) {
+            // Pending changes were dropped so the only way to get back
+            // in sync is to reconcile against the current data.  Any changes
+            // that arrived after the drop still get applied below.
+            if( filtersChanged ) {
+                filtersChanged = false;
+                updateFilters();
+            }
+            resyncEntities(updates);
+        }
+
         if( buildTransactionChanges(updates) ) {
             // Resolve all of the changes into the change sets
             transaction.resolveChanges();
+            if( resynced ) {
+                // Changes that came in after the overflow may have touched
+                // entities that the resync just added.  To the caller they
+                // are still only adds.
+                changedEntities.removeAll(addedEntities);
+            }
         }
 
         if( filtersChanged ) {
             filtersChanged = false;
 
             // Recompose our local filters array
-            this.filters = criteria.toFilterArray();
+            updateFilters();
 
             // Remove any entities that no longer match
             purgeEntities();
@@ -555,6 +890,122 @@ public class DefaultEntitySet extends AbstractSet<Entity>
         return -1;
     }
 
+    /**
+     *  Turns on or off the pre-filtering of changes based on which entities
+     *  this set has or could have.  When enabled, changes are rejected as they
+     *  arrive instead of being queued when they could not possibly affect the
+     *  set.  This includes removes and non-matching components for entities
+     *  that are not in the set, and changes for entities that are already
+     *  known to be missing a component or to have one that fails a filter.
+     *  For a set that is filtered to a small part of a busy world, this keeps
+     *  most of the world's changes out of the change buffer.
+     *
+     *  <p>Any entity that could join the set is always completed from the
+     *  current data in the EntityData, so dropping a change is only ever
+     *  done when some later accepted change would have to come first.  This
+     *  relies on completeEntity() pulling missing components from the
+     *  EntityData which is not the case for some remote implementations.</p>
+     *
+     *  <p>This should be called from the same thread that calls
+     *  applyChanges().  It is off by default.</p>
+     */
+    public void setInterestFiltering( boolean enabled ) {
+        if( enabled == (interest != null) ) {
+            return;
+        }
+        if( enabled ) {
+            Set<EntityId> set = ConcurrentHashMap.newKeySet();
+            set.addAll(getEntityIds());
+            interestState = new InterestState(filters);
+            interest = set;
+        } else {
+            interest = null;
+            interestState = null;
+        }
+    }
+
+    public boolean isInterestFiltering() {
+        return interest != null;
+    }
+
+    private void updateFilters() {
+        this.filters = criteria.toFilterArray();
+        if( interestState != null ) {
+            // What we knew about non-matching entities was based on
+            // the old filters
+            interestState = new InterestState(filters);
+        }
+    }
+
+    private void addInterest( EntityId id ) {
+        Set<EntityId> interest = this.interest;
+        if( interest != null ) {
+            interest.add(id);
+        }
+    }
+
+    private void removeInterest( EntityId id ) {
+        Set<EntityId> interest = this.interest;
+        if( interest != null ) {
+            interest.remove(id);
+        }
+    }
+
+    /**
+     *  Called from the transaction for an entity that could not be completed
+     *  or no longer matches.  Remembers the first component type that keeps
+     *  it out of the set so that changes to its other components can be
+     *  rejected until that one changes.
+     */
+    private void rejectInterest( Entity e ) {
+        InterestState state = interestState;
+        if( state == null ) {
+            return;
+        }
+        EntityComponent[] array = e.getComponents();
+        for( int i = 0; i < array.length; i++ ) {
+            EntityComponent c = array[i];
+            if( c == null || c == REMOVED_COMPONENT
+                || (filters[i] != null && !filters[i].evaluate(c)) ) {
+                // Set while the entity is still in the interest set so that
+                // no change events can be evaluating it yet.
+                state.setBlocked(e.getId(), i);
+                break;
+            }
+        }
+        removeInterest(e.getId());
+    }
+
+    /**
+     *  Called for changes on the threads delivering them, when interest
+     *  filtering is enabled.
+     */
+    protected boolean isInterestingChange( EntityChange change ) {
+        Set<EntityId> interest = this.interest;
+        InterestState state = interestState;
+        if( interest == null || state == null ) {
+            return true;
+        }
+        EntityId id = change.getEntityId();
+        if( interest.contains(id) ) {
+            return true;
+        }
+        int index = typeIndex(change.getComponentType());
+        if( index < 0 ) {
+            return true;
+        }
+
+        // If the entity is not in the set then it can only join because of
+        // a component that is set and matches, and only once all of the other
+        // components that were keeping it out have also changed.  At that
+        // point the transaction will pull the current value of every
+        // component so we don't need any of the changes that came before.
+        EntityComponent comp = change.getComponent();
+        ComponentFilter filter = state.filters[index];
+        boolean satisfied = comp != null && (filter == null || filter.evaluate(comp));
+        return state.update(id, index, satisfied, comp == null);
+    }
+
     protected boolean isRelevantChange( EntityChange change ) {
 
         // Here we care about any changes that change the status
@@ -573,6 +1024,12 @@ public class DefaultEntitySet extends AbstractSet<Entity>
             return false;  // doesn't matter to us
         }
 
+        if( interest != null && !isInterestingChange(change) ) {
+            if( log.isTraceEnabled() )
+                log.trace( "   not interesting." );
+            return false;
+        }
+
         // There use to be a bunch of logic here trying to determine
         // if a change is relevant to an entity we have or might have.
         // It can be made to work but not without a lot of threading
@@ -615,6 +1072,79 @@ public class DefaultEntitySet extends AbstractSet<Entity>
         changes.add(change);
     }
 
+    /**
+     *  Accumulates a batch of changes that were all applied to the
+     *  EntityData together.  They are queued as one unit so that a
+     *  concurrent applyChanges() either sees all of them or none of them.
+     */
+    protected void entityChanges( List<EntityChange> batch ) {
+        if( log.isTraceEnabled() ) {
+            log.trace("entityChanges(" + batch + ")");
+        }
+        List<EntityChange> relevant = new ArrayList<>(batch.size());
+        for( EntityChange change : batch ) {
+            if( isRelevantChange(change) ) {
+                relevant.add(change);
+            }
+        }
+        if( relevant.isEmpty() ) {
+            return;
+        }
+        changes.addAll(relevant);
+    }
+
+    /**
+     *  Called before a transaction's added entities are completed so that their
+     *  missing components can be retrieved in bulk instead of one at a time by
+     *  completeEntity().  Like completeEntity(), an entity stops being filled
+     *  in at the first component it doesn't have.  That component is marked
+     *  as removed which makes completeEntity() reject the entity.
+     *  Implementations that never retrieve missing components should override
+     *  this to do nothing.
+     */
+    protected void prefetchComponents( EntityHashSet<DefaultEntity> adds ) {
+        List<DefaultEntity> pending = new ArrayList<>();
+        List<EntityId> ids = new ArrayList<>();
+        for( int i = 0; i < types.length; i++ ) {
+            pending.clear();
+            ids.clear();
+            for( int j = 0, size = adds.size(); j < size; j++ ) {
+                DefaultEntity e = adds.get(j);
+                EntityComponent[] array = e.getComponents();
+                if( array[i] == null && !isRejected(array) ) {
+                    pending.add(e);
+                    ids.add(e.getId());
+                }
+            }
+            if( ids.size() < 2 ) {
+                // Not worth it, completeEntity() will get it
+                continue;
+            }
+            Map<EntityId, ? extends EntityComponent> map = ed.getComponents(ids, types[i]);
+            for( DefaultEntity e : pending ) {
+                EntityComponent value = map.get(e.getId());
+                e.getComponents()[i] = value != null ? value : REMOVED_COMPONENT;
+            }
+        }
+    }
+
+    /**
+     *  Returns true if the components that are already filled in mean that
+     *  completeEntity() will reject the entity anyway.
+     */
+    private boolean isRejected( EntityComponent[] array ) {
+        for( int i = 0; i < array.length; i++ ) {
+            EntityComponent c = array[i];
+            if( c == REMOVED_COMPONENT ) {
+                return true;
+            }
+            if( c != null && filters[i] != null && !filters[i].evaluate(c) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      *  Called by the Transaction object to fill in the missing
      *  components for an entity if this is the first time it's
@@ -684,16 +1214,25 @@ public class DefaultEntitySet extends AbstractSet<Entity>
         return true;
     }
 
-    protected ConcurrentLinkedQueue<EntityChange> getChangeQueue() {
+    protected EntityChangeBuffer getChangeBuffer() {
         return changes;
     }
 
+    /**
+     *  Returns the latest change that has been received but not yet applied
+     *  for the specified entity and component type, or null if there is no
+     *  pending change.
+     */
+    protected EntityChange getPendingChange( EntityId id, Class<? extends EntityComponent> type ) {
+        return changes.get(id, type);
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(getClass().getSimpleName())
             .add("types", Arrays.asList(types))
             .add("criteria", criteria)
-            .add("entityCount", entities.size())
+            .add("entityCount", size())
             .add("changeCount", changes.size())
             .add("released", released)
             .toString();
@@ -701,7 +1240,7 @@ public class DefaultEntitySet extends AbstractSet<Entity>
 
     private class EntityIterator implements Iterator<Entity> {
 
-        private final Iterator<Map.Entry<EntityId,Entity>> delegate = entities.entrySet().iterator();
+        private final Iterator<Map.Entry<EntityId,Entity>> delegate = entityMap().entrySet().iterator();
 
         public EntityIterator() {
         }
@@ -711,14 +1250,71 @@ public class DefaultEntitySet extends AbstractSet<Entity>
             return delegate.hasNext();
         }
 
+        private EntityId last;
+
         @Override
         public Entity next() {
-            return delegate.next().getValue();
+            Map.Entry<EntityId,Entity> entry = delegate.next();
+            last = entry.getKey();
+            return entry.getValue();
         }
 
         @Override
         public void remove() {
             delegate.remove();
+            removeInterest(last);
+        }
+    }
+
+    /**
+     *  What is known about entities that are not in the set when interest
+     *  filtering is enabled.  Keeps a bit mask per entity of the component
+     *  types that are known to be missing or not matching the filters that
+     *  were in place when this state was created.  An entity without a mask
+     *  is unknown and its changes are always accepted.
+     */
+    private static class InterestState {
+        final ComponentFilter[] filters;
+        final ConcurrentHashMap<EntityId, Long> blocked = new ConcurrentHashMap<>();
+
+        public InterestState( ComponentFilter[] filters ) {
+            this.filters = filters;
+        }
+
+        private static long bit( int index ) {
+            // Types past 64 are just never tracked
+            return index < 64 ? 1L << index : 0;
+        }
+
+        public void setBlocked( EntityId id, int index ) {
+            long mask = bit(index);
+            if( mask != 0 ) {
+                blocked.put(id, mask);
+            }
+        }
+
+        /**
+         *  Updates the blocked state for the specified component type and
+         *  returns true if the change should be accepted.
+         */
+        public boolean update( EntityId id, int index, boolean satisfied, boolean removed ) {
+            long mask = bit(index);
+            if( satisfied ) {
+                Long result = blocked.computeIfPresent(id, (k, v) -> {
+                    long remaining = v & ~mask;
+                    return remaining == 0 ? null : remaining;
+                });
+                // Accept it only if nothing else is still blocking
+                return result == null;
+            }
+            if( removed ) {
+                // Forgetting is always safe and this keeps us from holding
+                // state forever for every entity that was ever removed.
+                blocked.remove(id);
+            } else {
+                blocked.merge(id, mask, (a, b) -> a | b);
+            }
+            return false;
         }
     }
 
@@ -765,12 +1361,16 @@ public class DefaultEntitySet extends AbstractSet<Entity>
      */
     protected class Transaction {
 
-        final Map<EntityId,DefaultEntity> adds = new HashMap<>();
-        final Set<EntityId> mods = new HashSet<>();
+        final EntityHashSet<DefaultEntity> adds = new EntityHashSet<>();
+        final EntityHashSet<Entity> mods = new EntityHashSet<>();
 
         // Keep track of direct purges
         final Set<EntityId> purges = new HashSet<>();
 
+        // Adds that were created from changes while interest filtering
+        // was enabled
+        final Set<EntityId> candidates = new HashSet<>();
+
         /**
          *  Called when we know (for whatever reason) that a full entity
          *  is being added.  This is useful for any implementation that
@@ -785,7 +1385,8 @@ public class DefaultEntitySet extends AbstractSet<Entity>
             if( existing != null ) {
                 log.warn("Fully replacing existing entity:" + existing + " with:" + e);
             }
-            adds.put(e.getId(), e);
+            adds.put(e);
+            candidates.remove(e.getId());
 
             // A direct add trumps a direct move.
             purges.remove(e.getId());
@@ -817,7 +1418,7 @@ public class DefaultEntitySet extends AbstractSet<Entity>
         public void addChange( EntityChange change, Set<EntityChange> updates ) {
             EntityId id = change.getEntityId();
             EntityComponent comp = change.getComponent();
-            DefaultEntity e = (DefaultEntity)entities.get( id );
+            DefaultEntity e = (DefaultEntity)getEntity(id);
 
             // If we don't have the entity then it's an add
             // and we need to create one.
@@ -852,13 +1453,19 @@ public class DefaultEntitySet extends AbstractSet<Entity>
                     // Create an empty entity with the right number
                     // of components.
                     e = new DefaultEntity(ed, id, new EntityComponent[types.length], types);
-                    adds.put(id, e);
+                    adds.put(e);
+
+                    // We need to see any changes made after we try to complete it
+                    if( interest != null ) {
+                        addInterest(id);
+                        candidates.add(id);
+                    }
                 }
 
             } else {
                 // Then it's an entity we have already and we are about
                 // to change it.
-                mods.add(id);
+                mods.add(e);
 
                 // We track the updates that caused a change... we'll
                 // filter out the ones that were for removed entities
@@ -941,7 +1548,23 @@ public class DefaultEntitySet extends AbstractSet<Entity>
             // out what's what.
 
             // Process the adds.
-            for( DefaultEntity e : adds.values() ) {
+            if( !candidates.isEmpty() ) {
+                for( int i = 0, size = adds.size(); i < size; i++ ) {
+                    DefaultEntity e = adds.get(i);
+                    if( candidates.contains(e.getId()) ) {
+                        // Changes to this entity may have been rejected up until
+                        // we became interested in it so the components we have
+                        // could be stale.  Make completeEntity() pull them all
+                        // fresh.
+                        Arrays.fill(e.getComponents(), null);
+                    }
+                }
+            }
+            if( adds.size() > 1 ) {
+                prefetchComponents(adds);
+            }
+            for( int i = 0, size = adds.size(); i < size; i++ ) {
+                DefaultEntity e = adds.get(i);
                 if( completeEntity(e) ) {
                     // It was an added entity
                     if( add(e) ) {
@@ -950,27 +1573,33 @@ public class DefaultEntitySet extends AbstractSet<Entity>
                 } else {
                     // It couldn't be completed so it is not really an add...
                     // it's just a waste of our time. ;)
+                    if( interest != null ) {
+                        rejectInterest(e);
+                    }
                 }
             }
 
-            // Process the purges
-            for( EntityId id : purges ) {
-                Entity e = entities.get(id);
-                if( e != null ) {
-                    if( remove(e) ) {
-                        removedEntities.add(e);
+            // Process the purges, if any.  Checked first just to avoid
+            // creating an iterator for an empty set every frame.
+            if( !purges.isEmpty() ) {
+                for( EntityId id : purges ) {
+                    Entity e = getEntity(id);
+                    if( e != null ) {
+                        if( remove(e) ) {
+                            removedEntities.add(e);
+                        }
                     }
+                    // No reason to do extra work in the mods list if we happened
+                    // to get component changes for the purged entity.
+                    mods.remove(id);
                 }
-                // No reason to do extra work in the mods list if we happened
-                // to get component changes for the purged entity.
-                mods.remove(id);
             }
 
             // Now... see which changes were removes and which ones
             // were real updates
-            for( EntityId id : mods ) {
+            for( int i = 0, size = mods.size(); i < size; i++ ) {
 
-                Entity e = entities.get(id);
+                Entity e = getEntity(mods.get(i).getId());
 
                 //((DefaultEntity)e).validate();
 
@@ -980,6 +1609,9 @@ public class DefaultEntitySet extends AbstractSet<Entity>
                 if( entityMatches(e) ) {
                     changedEntities.add(e);
                 } else {
+                    if( interest != null ) {
+                        rejectInterest(e);
+                    }
                     if( remove(e) ) {
                         removedEntities.add(e);
                     }
@@ -989,7 +1621,12 @@ public class DefaultEntitySet extends AbstractSet<Entity>
             // Clear the buffers for next time
             adds.clear();
             mods.clear();
-            purges.clear();
+            if( !purges.isEmpty() ) {
+                purges.clear();
+            }
+            if( !candidates.isEmpty() ) {
+                candidates.clear();
+            }
         }
     }
 }
@@ -75,6 +75,30 @@ public class DefaultQuery<T extends EntityComponent> implements Query {
         return handler.findEntity(filter);
     }
 
+    @Override
+    public int estimateSize() {
+        return handler.estimateSize(filter);
+    }
+
+    /**
+     *  Returns true if the handler can give a size estimate, which for the
+     *  standard handlers means that they are in-memory and that a
+     *  getComponent() per entity is cheap.
+     */
+    @Override
+    public boolean supportsContains() {
+        return handler.estimateSize(null) != Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean contains( EntityId entityId ) {
+        T value = handler.getComponent(entityId);
+        if( value == null ) {
+            return false;
+        }
+        return filter == null || filter.evaluate(value);
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(getClass().getName())
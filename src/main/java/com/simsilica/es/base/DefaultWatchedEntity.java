@@ -79,7 +79,11 @@ public class DefaultWatchedEntity implements WatchedEntity {
         this.types = types;
         this.typeSet = new HashSet<>(Arrays.asList(types));
         this.listener = new ChangeProcessor();
-        if( ed instanceof ObservableEntityData ) {
+        if( ed instanceof DefaultEntityData ) {
+            // Gets only this entity's changes instead of listening
+            // to all of them
+            ((DefaultEntityData)ed).addWatcher(this);
+        } else if( ed instanceof ObservableEntityData ) {
             ((ObservableEntityData)ed).addEntityComponentListener(listener);
         }
         if( data == null ) {
@@ -195,7 +199,9 @@ public class DefaultWatchedEntity implements WatchedEntity {
     @Override
     public void release() {
         released = true;
-        if( ed instanceof ObservableEntityData ) {
+        if( ed instanceof DefaultEntityData ) {
+            ((DefaultEntityData)ed).removeWatcher(this);
+        } else if( ed instanceof ObservableEntityData ) {
             ((ObservableEntityData)ed).removeEntityComponentListener(listener);
         }
     }
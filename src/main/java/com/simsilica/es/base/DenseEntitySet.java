@@ -0,0 +1,224 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.base;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+import com.simsilica.es.*;
+
+/**
+ *  An entity set that keeps its entities packed into an array so that
+ *  they can be iterated by index or with forEach() without creating any
+ *  garbage.  Removes swap the last entity into the removed entity's slot so
+ *  the order of entities is not stable across applyChanges() calls.
+ *
+ *  <p>The entities are stored in an EntityHashSet instead of the usual
+ *  map so that adds and removes do not allocate either.</p>
+ *
+ *  <p>column() provides per-component-type views aligned with the entity
+ *  order for systems that process one or two components of every entity.</p>
+ *
+ *  <p>Like DefaultEntitySet, the set should only be accessed from the thread
+ *  calling applyChanges() and must not be modified while it is being iterated
+ *  except through the iterator's remove().</p>
+ *
+ *  @author    Paul Speed
+ */
+public class DenseEntitySet extends DefaultEntitySet {
+
+    private final EntityHashSet<Entity> entities = new EntityHashSet<>();
+    private final Set<EntityId> entityIds = new EntityIdView();
+    private final ComponentColumn[] columns;
+
+    public DenseEntitySet( EntityData ed, EntityCriteria criteria ) {
+        super(ed, criteria);
+        this.columns = new ComponentColumn[getTypes().length];
+    }
+
+    /**
+     *  Returns a view of the specified component type for all of the entities
+     *  in this set where column.get(i) is the component of get(i).  The type
+     *  must be one of the set's component types.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends EntityComponent> ComponentColumn<T> column( Class<T> type ) {
+        Class<? extends EntityComponent>[] types = getTypes();
+        for( int i = 0; i < types.length; i++ ) {
+            if( types[i] == type ) {
+                if( columns[i] == null ) {
+                    columns[i] = new ComponentColumn<>(this, type, i);
+                }
+                return (ComponentColumn<T>)columns[i];
+            }
+        }
+        throw new IllegalArgumentException("Type:" + type + " is not in entity set:" + this);
+    }
+
+    /**
+     *  Returns the entity at the specified index where index is between
+     *  0 and size() - 1.
+     */
+    public Entity get( int index ) {
+        return entities.get(index);
+    }
+
+    /**
+     *  Returns the current index of the specified entity or -1 if it is
+     *  not in this set.
+     */
+    public int indexOf( EntityId id ) {
+        return entities.indexOf(id);
+    }
+
+    @Override
+    public int size() {
+        return entities.size();
+    }
+
+    @Override
+    public boolean containsId( EntityId id ) {
+        return entities.containsId(id);
+    }
+
+    @Override
+    public Entity getEntity( EntityId id ) {
+        return entities.get(id);
+    }
+
+    @Override
+    public Set<EntityId> getEntityIds() {
+        return entityIds;
+    }
+
+    @Override
+    public void forEach( Consumer<? super Entity> action ) {
+        for( int i = 0, size = entities.size(); i < size; i++ ) {
+            action.accept(entities.get(i));
+        }
+    }
+
+    @Override
+    public Iterator<Entity> iterator() {
+        return new DenseIterator();
+    }
+
+    @Override
+    protected Entity putEntity( Entity e ) {
+        return entities.put(e);
+    }
+
+    @Override
+    protected Entity removeEntity( EntityId id ) {
+        return entities.remove(id);
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        entities.clear();
+    }
+
+    private class DenseIterator implements Iterator<Entity> {
+        private int next = 0;
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < entities.size();
+        }
+
+        @Override
+        public Entity next() {
+            if( next >= entities.size() ) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            return entities.get(next++);
+        }
+
+        @Override
+        public void remove() {
+            if( last < 0 ) {
+                throw new IllegalStateException();
+            }
+            DenseEntitySet.this.remove(entities.get(last).getId());
+
+            // The last entity was swapped into this slot and still
+            // needs to be visited
+            next = last;
+            last = -1;
+        }
+    }
+
+    /**
+     *  Live view of the IDs of the entities in this set.
+     */
+    private class EntityIdView extends AbstractSet<EntityId> {
+
+        @Override
+        public int size() {
+            return entities.size();
+        }
+
+        @Override
+        public boolean contains( Object o ) {
+            return o instanceof EntityId && entities.containsId((EntityId)o);
+        }
+
+        @Override
+        public Iterator<EntityId> iterator() {
+            final Iterator<Entity> delegate = DenseEntitySet.this.iterator();
+            return new Iterator<EntityId>() {
+                @Override
+                public boolean hasNext() {
+                    return delegate.hasNext();
+                }
+
+                @Override
+                public EntityId next() {
+                    return delegate.next().getId();
+                }
+
+                @Override
+                public void remove() {
+                    delegate.remove();
+                }
+            };
+        }
+    }
+}
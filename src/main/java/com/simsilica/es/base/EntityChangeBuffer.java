@@ -0,0 +1,454 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.base;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+import com.google.common.base.MoreObjects;
+
+import com.simsilica.es.*;
+
+/**
+ *  Accumulates the pending changes for an entity set, keeping only the
+ *  latest change for any given entity and component type.  A component
+ *  that is set four times between applyChanges() calls is only seen by
+ *  the transaction once with its last value.  A remove is just a change
+ *  with a null component so a set followed by a remove collapses to the
+ *  remove and a remove followed by a set collapses to the set, which is
+ *  what applying them in order would have produced anyway.
+ *
+ *  <p>Changes are kept in an open-addressing table keyed by entity ID and
+ *  the component type's index in the entity set's types array.  There are
+ *  two tables that are swapped on drain() so that once they have grown to
+ *  their working size neither adding nor draining changes allocates
+ *  anything.  Changes for different entities or types are independent of
+ *  each other during transaction processing so no ordering is kept
+ *  between them.</p>
+ *
+ *  <p>add() may be called from any thread.  The buffer is locked for the
+ *  short time it takes to add a change or swap the tables so a drain
+ *  never sees only part of a batch added with addAll().</p>
+ *
+ *  <p>drain() can also be limited to a maximum number of changes.  The
+ *  changes left over stay in a backlog table, in the order they were
+ *  first added, and new changes are coalesced into that backlog until
+ *  it has been fully drained.  A limited drain always takes all of the
+ *  pending changes for an entity together so an entity never sees only
+ *  part of a batch, but a batch that spans several entities can be split
+ *  across drains.</p>
+ *
+ *  <p>The buffer can optionally be bounded.  When a maximum size is set
+ *  and an add() pushes the buffer past it then all pending changes are
+ *  dropped and the buffer is flagged as overflowed.  The owner is then
+ *  expected to check checkOverflow() and resynchronize its state from
+ *  the source data since the individual changes are gone.</p>
+ *
+ *  @author    Paul Speed
+ */
+public class EntityChangeBuffer {
+
+    private final Class<? extends EntityComponent>[] types;
+    // Exactly one of current and backlog can have changes at a time.  The
+    // tables are swapped around during drains and spare is the one that is
+    // not in use.
+    private ChangeTable current = new ChangeTable();
+    private ChangeTable backlog = new ChangeTable();
+    private ChangeTable spare = new ChangeTable();
+    private volatile int size = 0;
+    private volatile int overflowCount = 0;
+    private volatile int maxSize = 0;
+    private volatile int highWaterMark = 0;
+    private volatile boolean overflowed = false;
+
+    public EntityChangeBuffer( Class<? extends EntityComponent>[] types ) {
+        this.types = types;
+    }
+
+    private int typeIndex( Class type ) {
+        for( int i = 0; i < types.length; i++ ) {
+            if( types[i] == type ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     *  Adds the change to the buffer, replacing any pending change for
+     *  the same entity and component type.  Returns false if the change
+     *  is for a type this buffer does not track.
+     */
+    public boolean add( EntityChange change ) {
+        int index = typeIndex(change.getComponentType());
+        if( index < 0 ) {
+            return false;
+        }
+        synchronized( this ) {
+            ChangeTable target = backlog.live > 0 ? backlog : current;
+            if( target.put(change.getEntityId().getId(), index, change) ) {
+                int count = target.live;
+                size = count;
+                if( count > highWaterMark ) {
+                    highWaterMark = count;
+                }
+                int max = maxSize;
+                if( max > 0 && count > max ) {
+                    target.clear();
+                    size = 0;
+                    overflowed = true;
+                    overflowCount++;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     *  Sets the maximum number of pending changes before the buffer drops
+     *  everything and flags itself as overflowed.  0 or less means that the
+     *  buffer is unbounded, which is the default.
+     */
+    public void setMaxSize( int maxSize ) {
+        this.maxSize = maxSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     *  Returns true if changes have been dropped because of overflow since
+     *  the last time this was called and resets the flag.
+     */
+    public boolean checkOverflow() {
+        if( !overflowed ) {
+            return false;
+        }
+        synchronized( this ) {
+            boolean result = overflowed;
+            overflowed = false;
+            return result;
+        }
+    }
+
+    /**
+     *  Returns the total number of times that this buffer has overflowed.
+     */
+    public int getOverflowCount() {
+        return overflowCount;
+    }
+
+    /**
+     *  Returns the largest number of changes that have been pending at
+     *  one time.
+     */
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     *  Adds all of the changes as one unit with respect to drain().
+     */
+    public synchronized void addAll( Collection<EntityChange> changes ) {
+        for( EntityChange change : changes ) {
+            add(change);
+        }
+    }
+
+    /**
+     *  Returns the pending change for the specified entity and type or
+     *  null if there isn't one.  Note: a pending remove is returned as
+     *  a change with a null component.
+     */
+    public synchronized EntityChange get( EntityId entityId, Class<? extends EntityComponent> type ) {
+        int index = typeIndex(type);
+        if( index < 0 ) {
+            return null;
+        }
+        ChangeTable source = backlog.live > 0 ? backlog : current;
+        return source.get(entityId.getId(), index);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     *  Returns the number of pending changes which is also the number of
+     *  distinct entity and type pairs that have changed.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     *  Removes every pending change and passes it to the consumer, returning
+     *  the number of changes drained.  Changes added while the consumer is
+     *  being called are kept for the next drain.  Only one thread should
+     *  call drain() at a time.
+     */
+    public int drain( Consumer<EntityChange> consumer ) {
+        return drain(consumer, Integer.MAX_VALUE);
+    }
+
+    /**
+     *  Removes up to maxChanges pending changes and passes them to the
+     *  consumer, returning the number of changes drained.  All of the changes
+     *  for an entity are drained together so a drain can return a few more
+     *  than maxChanges.  Changes are drained oldest entity first and whatever
+     *  is left is kept for the next drain.
+     */
+    public int drain( Consumer<EntityChange> consumer, int maxChanges ) {
+        ChangeTable drained;
+        synchronized( this ) {
+            ChangeTable source = backlog.live > 0 ? backlog : current;
+            if( source.live == 0 ) {
+                return 0;
+            }
+            if( spare == null ) {
+                spare = new ChangeTable();
+            }
+            if( source.live <= maxChanges ) {
+                // Take the whole table
+                drained = source;
+                if( source == current ) {
+                    current = spare;
+                } else {
+                    backlog = spare;
+                }
+            } else {
+                if( source == current ) {
+                    // The backlog is empty so they can just trade places
+                    current = backlog;
+                    backlog = source;
+                }
+                drained = spare;
+                backlog.moveTo(drained, maxChanges, types.length);
+            }
+            spare = null;
+            size = backlog.live;
+        }
+        int count = drained.live;
+        try {
+            if( consumer != null ) {
+                drained.drainTo(consumer);
+            }
+        } finally {
+            drained.clear();
+            synchronized( this ) {
+                spare = drained;
+            }
+        }
+        return count;
+    }
+
+    /**
+     *  Drops all pending changes.
+     */
+    public synchronized void clear() {
+        current.clear();
+        backlog.clear();
+        size = 0;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass().getSimpleName())
+            .add("types", Arrays.asList(types))
+            .add("size", size)
+            .add("maxSize", maxSize)
+            .add("highWaterMark", highWaterMark)
+            .add("overflowCount", overflowCount)
+            .toString();
+    }
+
+    /**
+     *  Open-addressing table of changes keyed by entity ID and type index.
+     *  A list of the used positions in the order they were added lets
+     *  forEach() and clear() skip the empty ones.  Entries moved out by
+     *  moveTo() are left behind as REMOVED markers so that lookups still
+     *  probe past them and are only really dropped when the table is
+     *  cleared or rebuilt.
+     */
+    private static class ChangeTable {
+        private static final EntityChange REMOVED = new EntityChange(null, null, null);
+
+        long[] ids;
+        int[] types;
+        EntityChange[] values;
+        int[] used;
+        int count;   // entries in used including removed ones
+        int head;    // the first entry in used that might still be live
+        int live;
+        int mask;
+
+        public ChangeTable() {
+            init(32);
+        }
+
+        private void init( int tableSize ) {
+            ids = new long[tableSize];
+            types = new int[tableSize];
+            values = new EntityChange[tableSize];
+            used = new int[tableSize / 2];
+            mask = tableSize - 1;
+        }
+
+        private static int hash( long id, int type ) {
+            long h = (id * 31 + type) * 0x9E3779B97F4A7C15L;
+            return (int)(h ^ (h >>> 32));
+        }
+
+        private int find( long id, int type ) {
+            int i = hash(id, type) & mask;
+            while( values[i] != null ) {
+                if( ids[i] == id && types[i] == type ) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+            return -i - 1;
+        }
+
+        public EntityChange get( long id, int type ) {
+            int i = find(id, type);
+            if( i < 0 || values[i] == REMOVED ) {
+                return null;
+            }
+            return values[i];
+        }
+
+        /**
+         *  Returns true if this was a new entry.
+         */
+        public boolean put( long id, int type, EntityChange change ) {
+            int i = find(id, type);
+            if( i >= 0 && values[i] != REMOVED ) {
+                values[i] = change;
+                return false;
+            }
+            if( count == used.length ) {
+                // Only grow if the removed entries wouldn't free up
+                // enough space
+                rebuild(live * 4 >= values.length ? values.length * 2 : values.length);
+                i = find(id, type);
+            }
+            if( i < 0 ) {
+                i = -i - 1;
+                ids[i] = id;
+                types[i] = type;
+            }
+            values[i] = change;
+            used[count++] = i;
+            live++;
+            return true;
+        }
+
+        private void rebuild( int tableSize ) {
+            long[] oldIds = ids;
+            int[] oldTypes = types;
+            EntityChange[] oldValues = values;
+            int[] oldUsed = used;
+            int start = head;
+            int end = count;
+            init(tableSize);
+            count = 0;
+            head = 0;
+            live = 0;
+            for( int u = start; u < end; u++ ) {
+                int j = oldUsed[u];
+                if( oldValues[j] != REMOVED ) {
+                    put(oldIds[j], oldTypes[j], oldValues[j]);
+                }
+            }
+        }
+
+        /**
+         *  Moves the oldest entities' changes to the target table until
+         *  at least max changes have been moved or this table is empty.
+         */
+        public int moveTo( ChangeTable target, int max, int typeCount ) {
+            int moved = 0;
+            while( moved < max && head < count ) {
+                int i = used[head++];
+                if( values[i] == REMOVED ) {
+                    continue;
+                }
+                long id = ids[i];
+                for( int t = 0; t < typeCount; t++ ) {
+                    int j = find(id, t);
+                    if( j >= 0 && values[j] != REMOVED ) {
+                        target.put(id, t, values[j]);
+                        values[j] = REMOVED;
+                        live--;
+                        moved++;
+                    }
+                }
+            }
+            if( live == 0 ) {
+                clear();
+            }
+            return moved;
+        }
+
+        /**
+         *  Passes every live change to the consumer, marking them as removed
+         *  as it goes.  A revived entry can be in the used list twice and this
+         *  keeps it from being seen twice.  The table should be cleared after.
+         */
+        public void drainTo( Consumer<EntityChange> consumer ) {
+            for( int u = head; u < count; u++ ) {
+                int i = used[u];
+                EntityChange change = values[i];
+                if( change != REMOVED ) {
+                    values[i] = REMOVED;
+                    consumer.accept(change);
+                }
+            }
+        }
+
+        public void clear() {
+            for( int u = 0; u < count; u++ ) {
+                values[used[u]] = null;
+            }
+            count = 0;
+            head = 0;
+            live = 0;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.base;
+
+import java.util.*;
+
+import com.simsilica.es.*;
+
+/**
+ *  A set of entities keyed by entity ID that does not allocate anything
+ *  for adds, removes, or clears once it has grown to its working size.
+ *  The entities are kept packed in an array that can be walked by index
+ *  and an open-addressing table of int slots maps IDs to array positions.
+ *  This is used for the entity set change tracking that is cleared and
+ *  refilled every applyChanges().
+ *
+ *  <p>Two entities with the same ID are considered the same entity.
+ *  Removes swap the last entity into the removed position so order is
+ *  not stable.  Not thread safe.</p>
+ *
+ *  @author    Paul Speed
+ */
+public class EntityHashSet<E extends Entity> extends AbstractSet<E> {
+
+    private Entity[] values;
+    private int size;
+
+    // Slot + 1 of the value in the values array, 0 is empty
+    private int[] index;
+    private int mask;
+
+    public EntityHashSet() {
+        this(16);
+    }
+
+    public EntityHashSet( int initialCapacity ) {
+        int cap = Math.max(8, initialCapacity);
+        this.values = new Entity[cap];
+        int tableSize = Integer.highestOneBit(cap * 2 - 1) << 1;
+        this.index = new int[tableSize];
+        this.mask = tableSize - 1;
+    }
+
+    private static int hash( long id ) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int)(h ^ (h >>> 32));
+    }
+
+    /**
+     *  Returns the table position of the ID if it is found, else returns
+     *  -(insertion position) - 1.
+     */
+    private int find( long id ) {
+        int i = hash(id) & mask;
+        int v;
+        while( (v = index[i]) != 0 ) {
+            if( values[v - 1].getId().getId() == id ) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -i - 1;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     *  Returns the entity at the specified position where i is between
+     *  0 and size() - 1.
+     */
+    @SuppressWarnings("unchecked")
+    public E get( int i ) {
+        if( i < 0 || i >= size ) {
+            throw new IndexOutOfBoundsException("Index:" + i + ", size:" + size);
+        }
+        return (E)values[i];
+    }
+
+    /**
+     *  Returns the entity with the specified ID or null if there isn't one.
+     */
+    @SuppressWarnings("unchecked")
+    public E get( EntityId id ) {
+        int i = find(id.getId());
+        return i < 0 ? null : (E)values[index[i] - 1];
+    }
+
+    /**
+     *  Returns the current position of the entity with the specified ID
+     *  or -1 if there isn't one.
+     */
+    public int indexOf( EntityId id ) {
+        int i = find(id.getId());
+        return i < 0 ? -1 : index[i] - 1;
+    }
+
+    public boolean containsId( EntityId id ) {
+        return find(id.getId()) >= 0;
+    }
+
+    @Override
+    public boolean contains( Object o ) {
+        if( !(o instanceof Entity) ) {
+            return false;
+        }
+        return containsId(((Entity)o).getId());
+    }
+
+    /**
+     *  Adds the entity if an entity with the same ID is not already in
+     *  the set.
+     */
+    @Override
+    public boolean add( E e ) {
+        int i = find(e.getId().getId());
+        if( i >= 0 ) {
+            return false;
+        }
+        insert(-i - 1, e);
+        return true;
+    }
+
+    /**
+     *  Adds the entity, replacing any existing entity with the same ID,
+     *  and returns the entity that was replaced.
+     */
+    @SuppressWarnings("unchecked")
+    public E put( E e ) {
+        int i = find(e.getId().getId());
+        if( i >= 0 ) {
+            int slot = index[i] - 1;
+            E old = (E)values[slot];
+            values[slot] = e;
+            return old;
+        }
+        insert(-i - 1, e);
+        return null;
+    }
+
+    private void insert( int pos, E e ) {
+        if( size == values.length ) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = e;
+        index[pos] = size;
+        if( size * 2 > index.length ) {
+            rehash(index.length * 2);
+        }
+    }
+
+    private void rehash( int tableSize ) {
+        index = new int[tableSize];
+        mask = tableSize - 1;
+        for( int s = 0; s < size; s++ ) {
+            int i = hash(values[s].getId().getId()) & mask;
+            while( index[i] != 0 ) {
+                i = (i + 1) & mask;
+            }
+            index[i] = s + 1;
+        }
+    }
+
+    @Override
+    public boolean remove( Object o ) {
+        if( !(o instanceof Entity) ) {
+            return false;
+        }
+        return remove(((Entity)o).getId()) != null;
+    }
+
+    /**
+     *  Removes the entity with the specified ID and returns it or returns
+     *  null if there was no entity with that ID.
+     */
+    public E remove( EntityId id ) {
+        int i = find(id.getId());
+        if( i < 0 ) {
+            return null;
+        }
+        return removeAt(i);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E removeAt( int pos ) {
+        int slot = index[pos] - 1;
+        E result = (E)values[slot];
+        deleteIndex(pos);
+
+        // Keep the values packed
+        int last = --size;
+        if( slot != last ) {
+            Entity moved = values[last];
+            values[slot] = moved;
+            index[find(moved.getId().getId())] = slot + 1;
+        }
+        values[last] = null;
+        return result;
+    }
+
+    /**
+     *  Removes the table entry at the specified position, shifting back
+     *  any later entries in the same probe run.
+     */
+    private void deleteIndex( int pos ) {
+        int i = pos;
+        int j = pos;
+        while( true ) {
+            j = (j + 1) & mask;
+            int v = index[j];
+            if( v == 0 ) {
+                break;
+            }
+            int home = hash(values[v - 1].getId().getId()) & mask;
+            // Move it if its home is not cyclically within (i, j]
+            boolean stays = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if( !stays ) {
+                index[i] = v;
+                i = j;
+            }
+        }
+        index[i] = 0;
+    }
+
+    /**
+     *  Removes all entities while keeping the current capacity.
+     */
+    @Override
+    public void clear() {
+        if( size == 0 ) {
+            return;
+        }
+        Arrays.fill(values, 0, size, null);
+        Arrays.fill(index, 0);
+        size = 0;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new EntityIterator();
+    }
+
+    private class EntityIterator implements Iterator<E> {
+        private int next = 0;
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if( next >= size ) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            return (E)values[next++];
+        }
+
+        @Override
+        public void remove() {
+            if( last < 0 ) {
+                throw new IllegalStateException();
+            }
+            EntityHashSet.this.remove(values[last].getId());
+
+            // The last entity was swapped into this position and
+            // still needs to be visited
+            next = last;
+            last = -1;
+        }
+    }
+}
@@ -41,5 +41,21 @@ package com.simsilica.es.base;
  */
 public interface EntityIdGenerator {
     public long nextEntityId(); 
+
+    /**
+     *  Reserves and returns the specified number of new IDs.  The default
+     *  implementation calls nextEntityId() for each one but implementations
+     *  should override this to reserve the whole block at once.
+     */
+    default long[] nextEntityIds( int count ) {
+        if( count < 0 ) {
+            throw new IllegalArgumentException("Count cannot be negative:" + count);
+        }
+        long[] results = new long[count];
+        for( int i = 0; i < count; i++ ) {
+            results[i] = nextEntityId();
+        }
+        return results;
+    }
 }
 
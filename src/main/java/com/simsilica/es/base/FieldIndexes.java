@@ -0,0 +1,433 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.base;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.primitives.Primitives;
+
+import com.simsilica.es.ComponentFilter;
+import com.simsilica.es.EntityComponent;
+import com.simsilica.es.EntityId;
+import com.simsilica.es.IndexedField;
+import com.simsilica.es.filter.AndFilter;
+import com.simsilica.es.filter.FieldFilter;
+import com.simsilica.es.filter.InFilter;
+import com.simsilica.es.filter.OrFilter;
+import com.simsilica.es.filter.RangeFilter;
+
+/**
+ *  Keeps in-memory value->entity indexes for the fields of a component
+ *  type that are annotated with @IndexedField.  Used by the in-memory
+ *  component handlers to resolve FieldFilter, InFilter, RangeFilter, AndFilter,
+ *  and OrFilter queries without scanning every component.  Fields of
+ *  primitive, enum, or final Comparable types (String, EntityId, etc.)
+ *  are kept sorted so that range queries only visit the matching values.
+ *
+ *  <p>Callers are expected to make their component store update and the
+ *  call to update() atomic with respect to other writers by synchronizing
+ *  on this object.  Lookups can happen from any thread.</p>
+ *
+ *  @author    Paul Speed
+ */
+public class FieldIndexes<T extends EntityComponent> {
+
+    private final Class<T> type;
+    private final Map<String, Index> indexes = new HashMap<>();
+
+    protected FieldIndexes( Class<T> type, List<Field> fields ) {
+        this.type = type;
+        for( Field f : fields ) {
+            f.setAccessible(true);
+            indexes.put(f.getName(), new Index(f));
+        }
+    }
+
+    /**
+     *  Returns a FieldIndexes for the specified type or null if the
+     *  type has no @IndexedField fields.
+     */
+    public static <T extends EntityComponent> FieldIndexes<T> create( Class<T> type ) {
+        if( type == null ) {
+            return null;
+        }
+        List<Field> fields = new ArrayList<>();
+        for( Field f : type.getDeclaredFields() ) {
+            if( Modifier.isStatic(f.getModifiers()) ) {
+                continue;
+            }
+            if( f.getAnnotation(IndexedField.class) != null ) {
+                fields.add(f);
+            }
+        }
+        if( fields.isEmpty() ) {
+            return null;
+        }
+        return new FieldIndexes<>(type, fields);
+    }
+
+    /**
+     *  Updates the indexes for an entity whose value changed from oldValue
+     *  to newValue.  Either can be null to indicate an add or a remove.
+     */
+    public void update( EntityId entityId, T oldValue, T newValue ) {
+        for( Index index : indexes.values() ) {
+            index.update(entityId, oldValue, newValue);
+        }
+    }
+
+    /**
+     *  Returns a set of candidate entity IDs for the specified filter or
+     *  null if the filter can't be resolved through the indexes.  The
+     *  candidates are a superset of the matching entities and callers should
+     *  still evaluate the filter against each candidate's current component.
+     */
+    public Set<EntityId> lookup( ComponentFilter filter ) {
+        if( filter == null || filter.getComponentType() != type ) {
+            return null;
+        }
+        if( filter instanceof FieldFilter ) {
+            FieldFilter f = (FieldFilter)filter;
+            Index index = indexes.get(f.getFieldName());
+            if( index == null ) {
+                return null;
+            }
+            return index.lookup(f.getValue());
+        } else if( filter instanceof InFilter ) {
+            InFilter f = (InFilter)filter;
+            Index index = indexes.get(f.getFieldName());
+            if( index == null ) {
+                return null;
+            }
+            if( f.getValues() == null ) {
+                return Collections.emptySet();
+            }
+            Set<EntityId> results = new HashSet<>();
+            for( Object value : f.getValues() ) {
+                results.addAll(index.lookup(value));
+            }
+            return results;
+        } else if( filter instanceof RangeFilter ) {
+            RangeFilter f = (RangeFilter)filter;
+            Index index = indexes.get(f.getFieldName());
+            if( index == null ) {
+                return null;
+            }
+            return index.lookupRange(f.getMin(), f.isMinInclusive(), f.getMax(), f.isMaxInclusive());
+        } else if( filter instanceof OrFilter ) {
+            // All of the operands must be indexable or we'd have to scan
+            // anyway.
+            ComponentFilter[] operands = ((OrFilter)filter).getOperands();
+            if( operands == null ) {
+                return null;
+            }
+            Set<EntityId> results = new HashSet<>();
+            for( ComponentFilter op : operands ) {
+                Set<EntityId> sub = lookup(op);
+                if( sub == null ) {
+                    return null;
+                }
+                results.addAll(sub);
+            }
+            return results;
+        } else if( filter instanceof AndFilter ) {
+            // Any indexable operand limits the candidates so we'll take the
+            // smallest one and let the caller evaluate the rest.
+            ComponentFilter[] operands = ((AndFilter)filter).getOperands();
+            if( operands == null ) {
+                return null;
+            }
+            Set<EntityId> best = null;
+            for( ComponentFilter op : operands ) {
+                Set<EntityId> sub = lookup(op);
+                if( sub != null && (best == null || sub.size() < best.size()) ) {
+                    best = sub;
+                }
+            }
+            return best;
+        }
+        return null;
+    }
+
+    /**
+     *  Returns the number of candidates that lookup() would return for the
+     *  specified filter without building the candidate set, or -1 if the
+     *  filter can't be resolved through the indexes.  Overlapping OR and IN
+     *  operands are counted more than once.
+     */
+    public int estimate( ComponentFilter filter ) {
+        if( filter == null || filter.getComponentType() != type ) {
+            return -1;
+        }
+        if( filter instanceof FieldFilter ) {
+            FieldFilter f = (FieldFilter)filter;
+            Index index = indexes.get(f.getFieldName());
+            return index == null ? -1 : index.count(f.getValue());
+        } else if( filter instanceof InFilter ) {
+            InFilter f = (InFilter)filter;
+            Index index = indexes.get(f.getFieldName());
+            if( index == null ) {
+                return -1;
+            }
+            if( f.getValues() == null ) {
+                return 0;
+            }
+            int result = 0;
+            for( Object value : f.getValues() ) {
+                result += index.count(value);
+            }
+            return result;
+        } else if( filter instanceof RangeFilter ) {
+            RangeFilter f = (RangeFilter)filter;
+            Index index = indexes.get(f.getFieldName());
+            if( index == null ) {
+                return -1;
+            }
+            return index.countRange(f.getMin(), f.isMinInclusive(), f.getMax(), f.isMaxInclusive());
+        } else if( filter instanceof OrFilter ) {
+            ComponentFilter[] operands = ((OrFilter)filter).getOperands();
+            if( operands == null ) {
+                return -1;
+            }
+            int result = 0;
+            for( ComponentFilter op : operands ) {
+                int sub = estimate(op);
+                if( sub < 0 ) {
+                    return -1;
+                }
+                result += sub;
+            }
+            return result;
+        } else if( filter instanceof AndFilter ) {
+            ComponentFilter[] operands = ((AndFilter)filter).getOperands();
+            if( operands == null ) {
+                return -1;
+            }
+            int best = -1;
+            for( ComponentFilter op : operands ) {
+                int sub = estimate(op);
+                if( sub >= 0 && (best < 0 || sub < best) ) {
+                    best = sub;
+                }
+            }
+            return best;
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass().getSimpleName())
+            .add("type", type)
+            .add("fields", indexes.keySet())
+            .toString();
+    }
+
+    private class Index {
+        private final Field field;
+        private final Class<?> keyType;
+        private final Map<Object, Set<EntityId>> values;
+        private final NavigableMap<Object, Set<EntityId>> sorted;
+
+        // Concurrent maps can't hold null keys so null field values
+        // are kept separately
+        private final Set<EntityId> nulls = ConcurrentHashMap.newKeySet();
+
+        public Index( Field field ) {
+            this.field = field;
+            Class<?> fieldType = field.getType();
+            if( isSortable(fieldType) ) {
+                this.keyType = Primitives.wrap(fieldType);
+                ConcurrentNavigableMap<Object, Set<EntityId>> map = new ConcurrentSkipListMap<>();
+                this.values = map;
+                this.sorted = map;
+            } else {
+                this.keyType = null;
+                this.values = new ConcurrentHashMap<>();
+                this.sorted = null;
+            }
+        }
+
+        private boolean isSortable( Class<?> type ) {
+            if( type == boolean.class ) {
+                return false;
+            }
+            if( type.isPrimitive() || type.isEnum() ) {
+                return true;
+            }
+            // Non-final types could mix values of different classes that
+            // aren't comparable with each other.
+            return Comparable.class.isAssignableFrom(type) && Modifier.isFinal(type.getModifiers());
+        }
+
+        private Object getValue( T component ) {
+            try {
+                return field.get(component);
+            } catch( IllegalAccessException e ) {
+                throw new RuntimeException("Error retrieving field[" + field + "] of:" + component, e);
+            }
+        }
+
+        private void remove( EntityId entityId, Object key ) {
+            if( key == null ) {
+                nulls.remove(entityId);
+                return;
+            }
+            Set<EntityId> set = values.get(key);
+            if( set != null ) {
+                set.remove(entityId);
+                if( set.isEmpty() ) {
+                    values.remove(key);
+                }
+            }
+        }
+
+        private void add( EntityId entityId, Object key ) {
+            if( key == null ) {
+                nulls.add(entityId);
+                return;
+            }
+            values.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(entityId);
+        }
+
+        public void update( EntityId entityId, T oldValue, T newValue ) {
+            Object oldKey = oldValue == null ? null : getValue(oldValue);
+            Object newKey = newValue == null ? null : getValue(newValue);
+            if( oldValue != null && newValue != null && Objects.equals(oldKey, newKey) ) {
+                return;
+            }
+            if( oldValue != null ) {
+                remove(entityId, oldKey);
+            }
+            if( newValue != null ) {
+                add(entityId, newKey);
+            }
+        }
+
+        public Set<EntityId> lookup( Object value ) {
+            if( value == null ) {
+                return new HashSet<>(nulls);
+            }
+            if( keyType != null && !keyType.isInstance(value) ) {
+                // The sorted map can't compare it and it could never
+                // be equal anyway
+                return Collections.emptySet();
+            }
+            Set<EntityId> set = values.get(value);
+            if( set == null ) {
+                return Collections.emptySet();
+            }
+            return new HashSet<>(set);
+        }
+
+        public int count( Object value ) {
+            if( value == null ) {
+                return nulls.size();
+            }
+            if( keyType != null && !keyType.isInstance(value) ) {
+                return 0;
+            }
+            Set<EntityId> set = values.get(value);
+            return set == null ? 0 : set.size();
+        }
+
+        public int countRange( Object min, boolean minInclusive,
+                               Object max, boolean maxInclusive ) {
+            NavigableMap<Object, Set<EntityId>> range = range(min, minInclusive, max, maxInclusive);
+            if( range == null ) {
+                return -1;
+            }
+            int result = 0;
+            for( Set<EntityId> set : range.values() ) {
+                result += set.size();
+            }
+            return result;
+        }
+
+        /**
+         *  Returns the entities whose values are in the specified range or
+         *  null if the range can't be resolved by this index.
+         */
+        public Set<EntityId> lookupRange( Object min, boolean minInclusive,
+                                          Object max, boolean maxInclusive ) {
+            NavigableMap<Object, Set<EntityId>> range = range(min, minInclusive, max, maxInclusive);
+            if( range == null ) {
+                return null;
+            }
+            Set<EntityId> results = new HashSet<>();
+            for( Set<EntityId> set : range.values() ) {
+                results.addAll(set);
+            }
+            return results;
+        }
+
+        private NavigableMap<Object, Set<EntityId>> range( Object min, boolean minInclusive,
+                                                           Object max, boolean maxInclusive ) {
+            if( sorted == null ) {
+                return null;
+            }
+            // Bounds of some other type are compared numerically by the
+            // filter which the sorted map can't do.
+            if( (min != null && !keyType.isInstance(min))
+                || (max != null && !keyType.isInstance(max)) ) {
+                return null;
+            }
+            NavigableMap<Object, Set<EntityId>> range;
+            if( min != null && max != null ) {
+                @SuppressWarnings("unchecked")
+                int c = ((Comparable<Object>)min).compareTo(max);
+                if( c > 0 || (c == 0 && !(minInclusive && maxInclusive)) ) {
+                    return Collections.emptyNavigableMap();
+                }
+                range = sorted.subMap(min, minInclusive, max, maxInclusive);
+            } else if( min != null ) {
+                range = sorted.tailMap(min, minInclusive);
+            } else if( max != null ) {
+                range = sorted.headMap(max, maxInclusive);
+            } else {
+                range = sorted;
+            }
+            return range;
+        }
+    }
+}
@@ -61,4 +61,19 @@ public class IdentityQuery implements Query {
     public Set<EntityId> execute() {
         return results;
     }
+
+    @Override
+    public int estimateSize() {
+        return results.size();
+    }
+
+    @Override
+    public boolean supportsContains() {
+        return true;
+    }
+
+    @Override
+    public boolean contains( EntityId entityId ) {
+        return results.contains(entityId);
+    }
 }
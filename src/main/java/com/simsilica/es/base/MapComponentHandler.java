@@ -43,7 +43,9 @@ import java.util.concurrent.*;
 
 
 /**
- *  Map-based component handler for in-memory components.
+ *  Map-based component handler for in-memory components.  Fields marked
+ *  with @IndexedField are indexed so that filtered queries on them do not
+ *  need to scan every component.
  *
  *  @author    Paul Speed
  */
@@ -52,6 +54,7 @@ public class MapComponentHandler<T extends EntityComponent>
 
     private final Class<? extends EntityComponent> type;
     private final Map<EntityId,T> components = new ConcurrentHashMap<EntityId,T>();
+    private final FieldIndexes<T> indexes;
 
     /**
      *  Provided only for backwards compatibility with any custom subclasses.
@@ -61,18 +64,54 @@ public class MapComponentHandler<T extends EntityComponent>
         this(null);
     }
 
+    @SuppressWarnings("unchecked")
     public MapComponentHandler( Class<? extends EntityComponent> type ) {
         this.type = type;
+        this.indexes = FieldIndexes.create((Class<T>)type);
     }
 
     @Override
     public void setComponent( EntityId entityId, T component ) {
-        components.put(entityId, component);
+        if( indexes == null ) {
+            components.put(entityId, component);
+            return;
+        }
+        synchronized( indexes ) {
+            T old = components.put(entityId, component);
+            indexes.update(entityId, old, component);
+        }
+    }
+
+    @Override
+    public void setComponents( EntityId[] entityIds, T component ) {
+        if( indexes == null ) {
+            for( EntityId id : entityIds ) {
+                components.put(id, component);
+            }
+            return;
+        }
+        // One lock for the whole block
+        synchronized( indexes ) {
+            for( EntityId id : entityIds ) {
+                T old = components.put(id, component);
+                indexes.update(id, old, component);
+            }
+        }
     }
 
     @Override
     public boolean removeComponent( EntityId entityId ) {
-        return components.remove(entityId) != null;
+        if( indexes == null ) {
+            return components.remove(entityId) != null;
+        }
+        synchronized( indexes ) {
+            T old = components.remove(entityId);
+            if( old == null ) {
+                return false;
+            }
+            indexes.update(entityId, old, null);
+            return true;
+        }
     }
 
     @Override
@@ -92,6 +131,19 @@ public class MapComponentHandler<T extends EntityComponent>
             return components.keySet();
         }
 
+        Set<EntityId> candidates = indexes == null ? null : indexes.lookup(filter);
+        if( candidates != null ) {
+            // The index candidates may be stale by the time we get to them
+            // so we still check the real values.
+            for( Iterator<EntityId> it = candidates.iterator(); it.hasNext(); ) {
+                T value = components.get(it.next());
+                if( value == null || !filter.evaluate(value) ) {
+                    it.remove();
+                }
+            }
+            return candidates;
+        }
+
         Set<EntityId> results = new HashSet<EntityId>();
         for( Map.Entry<EntityId,T> e : components.entrySet() ) {
             if( filter.evaluate((EntityComponent)e.getValue()) ) {
@@ -103,6 +155,16 @@ public class MapComponentHandler<T extends EntityComponent>
 
     @Override
     public EntityId findEntity( ComponentFilter filter ) {
+        Set<EntityId> candidates = indexes == null ? null : indexes.lookup(filter);
+        if( candidates != null ) {
+            for( EntityId id : candidates ) {
+                T value = components.get(id);
+                if( value != null && filter.evaluate(value) ) {
+                    return id;
+                }
+            }
+            return null;
+        }
         for( Map.Entry<EntityId,T> e : components.entrySet() ) {
             if( filter == null || filter.evaluate((EntityComponent)e.getValue()) ) {
                 return e.getKey();
@@ -111,6 +173,21 @@ public class MapComponentHandler<T extends EntityComponent>
         return null;
     }
 
+    @Override
+    public boolean hasExternalComponents() {
+        return false;
+    }
+
+    @Override
+    public int estimateSize( ComponentFilter filter ) {
+        int size = components.size();
+        if( filter == null || indexes == null ) {
+            return size;
+        }
+        int estimate = indexes.estimate(filter);
+        return estimate < 0 ? size : Math.min(estimate, size);
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(getClass().getSimpleName())
@@ -35,6 +35,7 @@
 package com.simsilica.es.filter;
 
 import java.util.*;
+import java.util.function.Predicate;
 
 import com.simsilica.es.ComponentFilter;
 import com.simsilica.es.EntityComponent;
@@ -50,6 +51,7 @@ public class AndFilter<T extends EntityComponent> implements ComponentFilter<T>
 
     private Class<T> type;
     private ComponentFilter<? super T>[] operands;
+    private transient Predicate<EntityComponent> predicate;
 
     public AndFilter() {
     }
@@ -75,6 +77,18 @@ public class AndFilter<T extends EntityComponent> implements ComponentFilter<T>
         return type;
     }
 
+    /**
+     *  Returns the compiled version of this filter with any nested
+     *  filters of the same kind flattened into one operand list.  The
+     *  returned predicate does not do any type checking.
+     */
+    protected Predicate<EntityComponent> getPredicate() {
+        if( predicate == null ) {
+            predicate = FilterCompiler.compileAnd(operands);
+        }
+        return predicate;
+    }
+
     @Override
     public boolean evaluate( EntityComponent c ) {
         if( !type.isInstance(c) ) {
@@ -83,13 +97,7 @@ public class AndFilter<T extends EntityComponent> implements ComponentFilter<T>
         if( operands == null ) {
             return true;
         }
-
-        for( ComponentFilter f : operands ) {
-            if( !f.evaluate(c) ) {
-                return false;
-            }
-        }
-        return true;
+        return getPredicate().test(c);
     }
 
     @Override
@@ -34,8 +34,8 @@
 
 package com.simsilica.es.filter;
 
-import com.google.common.base.Objects;
 import java.lang.reflect.*;
+import java.util.function.Predicate;
 
 
 import com.simsilica.es.ComponentFilter;
@@ -51,7 +51,7 @@ public class FieldFilter<T extends EntityComponent> implements ComponentFilter<T
     private Class<T> type;
     private Field field;
     private Object value;
-    private transient boolean initialized = false;
+    private transient Predicate<EntityComponent> predicate;
     
     public FieldFilter() {
     }
@@ -85,21 +85,27 @@ public class FieldFilter<T extends EntityComponent> implements ComponentFilter<T
         return type;
     }
     
+    /**
+     *  Returns the compiled version of this filter's field comparison where
+     *  the field lookup and the comparison dispatch are resolved once.  The
+     *  field value is still read through its Field accessor.  The returned
+     *  predicate does not do any type checking.
+     */
+    protected Predicate<EntityComponent> getPredicate() {
+        // Lazily created because this filter may have been deserialized
+        // with just its fields set.
+        if( predicate == null ) {
+            predicate = FilterCompiler.fieldEquals(field, value);
+        }
+        return predicate;
+    }
+
     @Override
     public boolean evaluate( EntityComponent c ) {
         if( !type.isInstance(c) ) {
             return false;
         }
-        try {
-            if( !initialized ) {
-                field.setAccessible(true);
-                initialized = true;
-            }
-            Object val = field.get(c);
-            return Objects.equal(value, val);
-        } catch( IllegalAccessException e ) {
-            throw new RuntimeException("Error retrieving field[" + field + "] of:" + c, e);
-        } 
+        return getPredicate().test(c);
     }
     
     @Override
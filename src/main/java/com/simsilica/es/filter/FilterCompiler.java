@@ -0,0 +1,440 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.filter;
+
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.function.Predicate;
+
+import com.simsilica.es.ComponentFilter;
+import com.simsilica.es.EntityComponent;
+
+/**
+ *  Compiles the standard filters into predicate trees that are built
+ *  once per filter.  The field lookup and the comparison dispatch are
+ *  resolved when compiling instead of on every evaluation.  Values are
+ *  still read through java.lang.reflect.Field but primitive fields use
+ *  the primitive accessors and are compared directly so that evaluation
+ *  does not box.  Nested AND/OR filters are flattened into single
+ *  predicates.
+ *
+ *  <p>The compiled predicates assume that the component has already
+ *  been type checked against the outer filter's component type.</p>
+ *
+ *  @author    Paul Speed
+ */
+class FilterCompiler {
+
+    private static final Predicate<EntityComponent> ALWAYS_TRUE = c -> true;
+    private static final Predicate<EntityComponent> ALWAYS_FALSE = c -> false;
+
+    /**
+     *  Returns an unchecked predicate for the specified filter.
+     */
+    public static Predicate<EntityComponent> compile( ComponentFilter filter ) {
+        if( filter instanceof FieldFilter ) {
+            return ((FieldFilter<?>)filter).getPredicate();
+        } else if( filter instanceof AndFilter ) {
+            return ((AndFilter<?>)filter).getPredicate();
+        } else if( filter instanceof OrFilter ) {
+            return ((OrFilter<?>)filter).getPredicate();
+        } else if( filter instanceof RangeFilter ) {
+            return ((RangeFilter<?>)filter).getPredicate();
+        } else if( filter instanceof InFilter ) {
+            return ((InFilter<?>)filter).getPredicate();
+        }
+        // Some other filter that we know nothing about
+        return filter::evaluate;
+    }
+
+    /**
+     *  Builds a single predicate that requires all of the operands to be true.
+     *  Nested AND filters are pulled up into the same operand list.
+     */
+    public static Predicate<EntityComponent> compileAnd( ComponentFilter[] operands ) {
+        if( operands == null ) {
+            return ALWAYS_TRUE;
+        }
+        List<Predicate<EntityComponent>> list = new ArrayList<>();
+        flattenAnd(operands, list);
+        if( list.isEmpty() ) {
+            return ALWAYS_TRUE;
+        }
+        if( list.size() == 1 ) {
+            return list.get(0);
+        }
+        Predicate<EntityComponent>[] array = toArray(list);
+        return c -> {
+            for( Predicate<EntityComponent> p : array ) {
+                if( !p.test(c) ) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    /**
+     *  Builds a single predicate that requires any of the operands to be true.
+     *  Nested OR filters are pulled up into the same operand list.
+     */
+    public static Predicate<EntityComponent> compileOr( ComponentFilter[] operands ) {
+        if( operands == null ) {
+            return ALWAYS_TRUE;
+        }
+        List<Predicate<EntityComponent>> list = new ArrayList<>();
+        flattenOr(operands, list);
+        if( list.isEmpty() ) {
+            return ALWAYS_FALSE;
+        }
+        if( list.size() == 1 ) {
+            return list.get(0);
+        }
+        Predicate<EntityComponent>[] array = toArray(list);
+        return c -> {
+            for( Predicate<EntityComponent> p : array ) {
+                if( p.test(c) ) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private static void flattenAnd( ComponentFilter[] operands, List<Predicate<EntityComponent>> list ) {
+        for( ComponentFilter f : operands ) {
+            if( f instanceof AndFilter && ((AndFilter)f).getOperands() != null ) {
+                flattenAnd(((AndFilter)f).getOperands(), list);
+            } else {
+                list.add(compile(f));
+            }
+        }
+    }
+
+    private static void flattenOr( ComponentFilter[] operands, List<Predicate<EntityComponent>> list ) {
+        for( ComponentFilter f : operands ) {
+            if( f instanceof OrFilter && ((OrFilter)f).getOperands() != null ) {
+                flattenOr(((OrFilter)f).getOperands(), list);
+            } else {
+                list.add(compile(f));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Predicate<EntityComponent>[] toArray( List<Predicate<EntityComponent>> list ) {
+        return list.toArray(new Predicate[list.size()]);
+    }
+
+    private static RuntimeException fieldError( Field field, EntityComponent c, Exception e ) {
+        return new RuntimeException("Error retrieving field[" + field + "] of:" + c, e);
+    }
+
+    /**
+     *  Creates an equality predicate for the specified field and value that
+     *  matches the semantics of Objects.equals() against the boxed field
+     *  value but without the boxing.
+     */
+    public static Predicate<EntityComponent> fieldEquals( Field field, Object value ) {
+        field.setAccessible(true);
+        Class<?> fieldType = field.getType();
+        if( !fieldType.isPrimitive() ) {
+            return c -> {
+                try {
+                    return Objects.equals(value, field.get(c));
+                } catch( IllegalAccessException e ) {
+                    throw fieldError(field, c, e);
+                }
+            };
+        }
+
+        // A primitive field's boxed value can only ever equal a value of
+        // the matching wrapper type.
+        if( value == null || value.getClass() != wrapperType(fieldType) ) {
+            return ALWAYS_FALSE;
+        }
+
+        if( fieldType == int.class ) {
+            int v = (Integer)value;
+            return c -> {
+                try {
+                    return field.getInt(c) == v;
+                } catch( IllegalAccessException e ) {
+                    throw fieldError(field, c, e);
+                }
+            };
+        } else if( fieldType == long.class ) {
+            long v = (Long)value;
+            return c -> {
+                try {
+                    return field.getLong(c) == v;
+                } catch( IllegalAccessException e ) {
+                    throw fieldError(field, c, e);
+                }
+            };
+        } else if( fieldType == boolean.class ) {
+            boolean v = (Boolean)value;
+            return c -> {
+                try {
+                    return field.getBoolean(c) == v;
+                } catch( IllegalAccessException e ) {
+                    throw fieldError(field, c, e);
+                }
+            };
+        } else if( fieldType == float.class ) {
+            // Float.equals() compares the bits
+            int v = Float.floatToIntBits((Float)value);
+            return c -> {
+                try {
+                    return Float.floatToIntBits(field.getFloat(c)) == v;
+                } catch( IllegalAccessException e ) {
+                    throw fieldError(field, c, e);
+                }
+            };
+        } else if( fieldType == double.class ) {
+            // Double.equals() compares the bits
+            long v = Double.doubleToLongBits((Double)value);
+            return c -> {
+                try {
+                    return Double.doubleToLongBits(field.getDouble(c)) == v;
+                } catch( IllegalAccessException e ) {
+                    throw fieldError(field, c, e);
+                }
+            };
+        }
+
+        // byte, short, char all widen to int
+        int v = fieldType == char.class ? (int)(Character)value : ((Number)value).intValue();
+        return c -> {
+            try {
+                return field.getInt(c) == v;
+            } catch( IllegalAccessException e ) {
+                throw fieldError(field, c, e);
+            }
+        };
+    }
+
+    /**
+     *  Creates a range predicate for the specified field.  Integral fields
+     *  compared against integral bounds are compared as longs, other numeric
+     *  combinations are compared as doubles (with Double.compare() semantics),
+     *  and everything else uses Comparable.compareTo().  A null bound leaves
+     *  that end of the range open.  Null field values never match.
+     */
+    public static Predicate<EntityComponent> fieldRange( Field field,
+                                                         Object min, boolean minInclusive,
+                                                         Object max, boolean maxInclusive ) {
+        field.setAccessible(true);
+        Class<?> fieldType = field.getType();
+        if( fieldType.isPrimitive() && fieldType != boolean.class
+            && isNumericBound(min) && isNumericBound(max) ) {
+            if( isIntegral(fieldType) && isIntegralBound(min) && isIntegralBound(max) ) {
+                // Convert to an inclusive range so the check is just two compares
+                long lo = Long.MIN_VALUE;
+                long hi = Long.MAX_VALUE;
+                if( min != null ) {
+                    lo = toLong(min);
+                    if( !minInclusive ) {
+                        if( lo == Long.MAX_VALUE ) {
+                            return ALWAYS_FALSE;
+                        }
+                        lo++;
+                    }
+                }
+                if( max != null ) {
+                    hi = toLong(max);
+                    if( !maxInclusive ) {
+                        if( hi == Long.MIN_VALUE ) {
+                            return ALWAYS_FALSE;
+                        }
+                        hi--;
+                    }
+                }
+                long from = lo;
+                long to = hi;
+                return c -> {
+                    try {
+                        long v = field.getLong(c);
+                        return v >= from && v <= to;
+                    } catch( IllegalAccessException e ) {
+                        throw fieldError(field, c, e);
+                    }
+                };
+            }
+
+            boolean hasMin = min != null;
+            boolean hasMax = max != null;
+            double lo = hasMin ? toDouble(min) : 0;
+            double hi = hasMax ? toDouble(max) : 0;
+            int minLimit = minInclusive ? 0 : 1;
+            int maxLimit = maxInclusive ? 0 : -1;
+            return c -> {
+                try {
+                    double v = field.getDouble(c);
+                    return (!hasMin || Double.compare(v, lo) >= minLimit)
+                        && (!hasMax || Double.compare(v, hi) <= maxLimit);
+                } catch( IllegalAccessException e ) {
+                    throw fieldError(field, c, e);
+                }
+            };
+        }
+
+        int minLimit = minInclusive ? 0 : 1;
+        int maxLimit = maxInclusive ? 0 : -1;
+        return c -> {
+            try {
+                Object v = field.get(c);
+                if( v == null ) {
+                    return false;
+                }
+                return (min == null || compare(v, min) >= minLimit)
+                    && (max == null || compare(v, max) <= maxLimit);
+            } catch( IllegalAccessException e ) {
+                throw fieldError(field, c, e);
+            }
+        };
+    }
+
+    /**
+     *  Compares a boxed field value to a bound.  Mixed numeric types are
+     *  compared numerically the same way as primitive fields, everything
+     *  else must be mutually Comparable.
+     */
+    @SuppressWarnings("unchecked")
+    private static int compare( Object value, Object bound ) {
+        if( value.getClass() != bound.getClass()
+            && value instanceof Number && bound instanceof Number ) {
+            if( isIntegralBound(value) && isIntegralBound(bound) ) {
+                return Long.compare(toLong(value), toLong(bound));
+            }
+            return Double.compare(toDouble(value), toDouble(bound));
+        }
+        return ((Comparable<Object>)value).compareTo(bound);
+    }
+
+    /**
+     *  Creates a predicate that returns true if the specified field is equal
+     *  to any of the specified values, using the same semantics as fieldEquals().
+     */
+    public static Predicate<EntityComponent> fieldIn( Field field, Object[] values ) {
+        field.setAccessible(true);
+        if( values == null || values.length == 0 ) {
+            return ALWAYS_FALSE;
+        }
+        Class<?> fieldType = field.getType();
+        if( isIntegral(fieldType) ) {
+            // Only the values of the exact wrapper type can ever match
+            Class<?> wrapper = wrapperType(fieldType);
+            long[] array = Arrays.stream(values)
+                .filter(v -> v != null && v.getClass() == wrapper)
+                .mapToLong(FilterCompiler::toLong)
+                .sorted()
+                .distinct()
+                .toArray();
+            if( array.length == 0 ) {
+                return ALWAYS_FALSE;
+            }
+            return c -> {
+                try {
+                    return Arrays.binarySearch(array, field.getLong(c)) >= 0;
+                } catch( IllegalAccessException e ) {
+                    throw fieldError(field, c, e);
+                }
+            };
+        }
+        if( values.length == 1 ) {
+            return fieldEquals(field, values[0]);
+        }
+        Set<Object> set = new HashSet<>(Arrays.asList(values));
+        return c -> {
+            try {
+                return set.contains(field.get(c));
+            } catch( IllegalAccessException e ) {
+                throw fieldError(field, c, e);
+            }
+        };
+    }
+
+    private static boolean isIntegral( Class<?> type ) {
+        return type == int.class || type == long.class || type == short.class
+            || type == byte.class || type == char.class;
+    }
+
+    private static boolean isNumericBound( Object o ) {
+        return o == null || o instanceof Number || o instanceof Character;
+    }
+
+    private static boolean isIntegralBound( Object o ) {
+        return o == null || o instanceof Integer || o instanceof Long
+            || o instanceof Short || o instanceof Byte || o instanceof Character;
+    }
+
+    private static long toLong( Object o ) {
+        if( o instanceof Character ) {
+            return (Character)o;
+        }
+        return ((Number)o).longValue();
+    }
+
+    private static double toDouble( Object o ) {
+        if( o instanceof Character ) {
+            return (Character)o;
+        }
+        return ((Number)o).doubleValue();
+    }
+
+    public static Class<?> wrapperType( Class<?> type ) {
+        if( type == int.class ) {
+            return Integer.class;
+        } else if( type == long.class ) {
+            return Long.class;
+        } else if( type == boolean.class ) {
+            return Boolean.class;
+        } else if( type == float.class ) {
+            return Float.class;
+        } else if( type == double.class ) {
+            return Double.class;
+        } else if( type == byte.class ) {
+            return Byte.class;
+        } else if( type == short.class ) {
+            return Short.class;
+        } else if( type == char.class ) {
+            return Character.class;
+        }
+        return type;
+    }
+}
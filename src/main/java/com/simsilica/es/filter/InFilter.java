@@ -0,0 +1,115 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.filter;
+
+import java.lang.reflect.*;
+import java.util.*;
+import java.util.function.Predicate;
+
+import com.simsilica.es.ComponentFilter;
+import com.simsilica.es.EntityComponent;
+
+/**
+ *  A filter that returns true when the value of a component field is
+ *  equal to any one of a set of values.  Values are compared with the
+ *  same .equals() semantics as FieldFilter, including null.
+ *
+ *  @author    Paul Speed
+ */
+public class InFilter<T extends EntityComponent> implements ComponentFilter<T> {
+
+    private Class<T> type;
+    private Field field;
+    private Object[] values;
+    private transient Predicate<EntityComponent> predicate;
+
+    public InFilter() {
+    }
+
+    public InFilter( Class<T> type, String field, Object... values ) {
+        try {
+            this.type = type;
+            this.field = type.getDeclaredField(field);
+            this.field.setAccessible(true);
+            this.values = values;
+        } catch( NoSuchFieldException e ) {
+            throw new IllegalArgumentException("Field not found:" + field + " on type:" + type, e);
+        }
+    }
+
+    public static <T extends EntityComponent> InFilter<T> create( Class<T> type, String field,
+                                                                  Object... values ) {
+        return new InFilter<T>(type, field, values);
+    }
+
+    public String getFieldName() {
+        return field.getName();
+    }
+
+    public Object[] getValues() {
+        return values;
+    }
+
+    @Override
+    public Class<T> getComponentType() {
+        return type;
+    }
+
+    /**
+     *  Returns the compiled version of this filter's membership check.  The
+     *  returned predicate does not do any type checking.
+     */
+    protected Predicate<EntityComponent> getPredicate() {
+        if( predicate == null ) {
+            predicate = FilterCompiler.fieldIn(field, values);
+        }
+        return predicate;
+    }
+
+    @Override
+    public boolean evaluate( EntityComponent c ) {
+        if( !type.isInstance(c) ) {
+            return false;
+        }
+        return getPredicate().test(c);
+    }
+
+    @Override
+    public String toString() {
+        return "InFilter[" + field + " in " + Arrays.toString(values) + "]";
+    }
+}
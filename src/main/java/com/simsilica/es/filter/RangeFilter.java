@@ -0,0 +1,145 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.filter;
+
+import java.lang.reflect.*;
+import java.util.function.Predicate;
+
+import com.simsilica.es.ComponentFilter;
+import com.simsilica.es.EntityComponent;
+
+/**
+ *  A filter that returns true when the value of a component field falls
+ *  within a range.  Either end of the range can be left open by passing
+ *  a null bound.  Numeric fields compare numerically against any Number
+ *  bounds, other field values must be Comparable to the bounds.  Null
+ *  field values never match.
+ *
+ *  @author    Paul Speed
+ */
+public class RangeFilter<T extends EntityComponent> implements ComponentFilter<T> {
+
+    private Class<T> type;
+    private Field field;
+    private Object min;
+    private boolean minInclusive;
+    private Object max;
+    private boolean maxInclusive;
+    private transient Predicate<EntityComponent> predicate;
+
+    public RangeFilter() {
+    }
+
+    public RangeFilter( Class<T> type, String field,
+                        Object min, boolean minInclusive,
+                        Object max, boolean maxInclusive ) {
+        try {
+            this.type = type;
+            this.field = type.getDeclaredField(field);
+            this.field.setAccessible(true);
+            this.min = min;
+            this.minInclusive = minInclusive;
+            this.max = max;
+            this.maxInclusive = maxInclusive;
+        } catch( NoSuchFieldException e ) {
+            throw new IllegalArgumentException("Field not found:" + field + " on type:" + type, e);
+        }
+    }
+
+    public static <T extends EntityComponent> RangeFilter<T> create( Class<T> type, String field,
+                                                                     Object min, boolean minInclusive,
+                                                                     Object max, boolean maxInclusive ) {
+        return new RangeFilter<T>(type, field, min, minInclusive, max, maxInclusive);
+    }
+
+    public String getFieldName() {
+        return field.getName();
+    }
+
+    /**
+     *  Returns the lower bound of the range or null if there is no lower bound.
+     */
+    public Object getMin() {
+        return min;
+    }
+
+    public boolean isMinInclusive() {
+        return minInclusive;
+    }
+
+    /**
+     *  Returns the upper bound of the range or null if there is no upper bound.
+     */
+    public Object getMax() {
+        return max;
+    }
+
+    public boolean isMaxInclusive() {
+        return maxInclusive;
+    }
+
+    @Override
+    public Class<T> getComponentType() {
+        return type;
+    }
+
+    /**
+     *  Returns the compiled version of this filter's range check.  The
+     *  returned predicate does not do any type checking.
+     */
+    protected Predicate<EntityComponent> getPredicate() {
+        if( predicate == null ) {
+            predicate = FilterCompiler.fieldRange(field, min, minInclusive, max, maxInclusive);
+        }
+        return predicate;
+    }
+
+    @Override
+    public boolean evaluate( EntityComponent c ) {
+        if( !type.isInstance(c) ) {
+            return false;
+        }
+        return getPredicate().test(c);
+    }
+
+    @Override
+    public String toString() {
+        return "RangeFilter[" + field + " in "
+                              + (min != null && minInclusive ? "[" : "(") + min + ", "
+                              + max + (max != null && maxInclusive ? "]" : ")") + "]";
+    }
+}
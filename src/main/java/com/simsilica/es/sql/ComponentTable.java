@@ -48,6 +48,8 @@ import com.simsilica.es.EntityComponent;
 import com.simsilica.es.filter.OrFilter;
 import com.simsilica.es.filter.AndFilter;
 import com.simsilica.es.filter.FieldFilter;
+import com.simsilica.es.filter.InFilter;
+import com.simsilica.es.filter.RangeFilter;
 
 
 /**
@@ -58,14 +60,25 @@ public class ComponentTable<T extends EntityComponent> {
 
     static Logger log = LoggerFactory.getLogger(ComponentTable.class);
 
+    // The largest number of IDs in one getComponents() IN clause
+    private static final int MAX_IN_CHUNK = 512;
+
     private final boolean cached = true;
     private final SqlComponentFactory<T>  componentFactory;
     private final FieldType[] fields;
     private final String tableName;
     private String[] dbFieldNames;
-
-    private final String insertSql;
-    private final String updateSql;
+    private String[] dbFieldTypes;
+
+    // The per-row SQL is built once up front so that every call uses
+    // the same parameterized statement
+    private final String mergeSql;
+    private final String removeSql;
+    private final String existsSql;
+    private final String selectSql;
+    private final String entityIdsSql;
+    private final String allComponentsSql;
+    private final String[] componentsInSql;
 
     protected ComponentTable( Class<T> type, SqlComponentFactory<T> factory ) {
         this.componentFactory = factory;
@@ -79,8 +92,51 @@ public class ComponentTable<T extends EntityComponent> {
         dbFieldNames = new String[names.size()];
         dbFieldNames = names.toArray(dbFieldNames);
 
-        insertSql = createInsertSql();
-        updateSql = createUpdateSql();
+        // Same order as the names
+        Map<String,FieldType> defs = new LinkedHashMap<String,FieldType>();
+        for( FieldType t : fields ) {
+            t.addFieldDefinitions("", defs);
+        }
+        dbFieldTypes = new String[defs.size()];
+        int i = 0;
+        for( FieldType t : defs.values() ) {
+            dbFieldTypes[i++] = t.getDbType();
+        }
+
+        mergeSql = createMergeSql();
+        removeSql = "DELETE FROM " + tableName + " WHERE entityId=?";
+        existsSql = "SELECT entityId FROM " + tableName + " WHERE entityId=?";
+        selectSql = createSelectSql(" WHERE entityId=?", false);
+        entityIdsSql = "SELECT t1.entityId FROM " + tableName + " t1";
+        allComponentsSql = createSelectSql("", true);
+
+        // One for each of the getComponents() chunk sizes
+        componentsInSql = new String[3];
+        for( int j = 0, size = 8; j < componentsInSql.length; j++, size *= 8 ) {
+            componentsInSql[j] = getComponentsSql(size);
+        }
+    }
+
+    /**
+     *  Creates a SELECT of the field columns followed by an optional
+     *  entityId column and the specified WHERE clause.
+     */
+    protected String createSelectSql( String where, boolean withId ) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        if( dbFieldNames.length > 0 ) {
+            Joiner.on(", ").appendTo(sql, dbFieldNames);
+            if( withId ) {
+                sql.append(", entityId");
+            }
+        } else {
+            // 2022-08-16 We need 'some' field just to make the SQL work in
+            // the case of no other fields.  Since we will ignore it anyway
+            // then it doesn't really matter but this seems better than '*'
+            sql.append("entityId");
+        }
+        sql.append(" FROM " + tableName);
+        sql.append(where);
+        return sql.toString();
     }
 
     public static <T extends EntityComponent> ComponentTable<T> create( SqlSession session,
@@ -95,48 +151,52 @@ public class ComponentTable<T extends EntityComponent> {
         return tableName;
     }
 
-    protected String createUpdateSql() {
-        StringBuilder sql = new StringBuilder("UPDATE " + tableName);
-        sql.append(" SET (");
-
-        Joiner.on(", ").appendTo(sql, dbFieldNames);
-        sql.append(")");
-
-        sql.append(" = ");
-
-        sql.append("(");
+    /**
+     *  Creates the single statement upsert used to write components:
+     *  <pre>
+     *  MERGE INTO table USING (VALUES (CAST(? AS type), ..., CAST(? AS BIGINT)))
+     *      AS vals(field, ..., entityId) ON table.entityId = vals.entityId
+     *  WHEN MATCHED THEN UPDATE SET field = vals.field, ...
+     *  WHEN NOT MATCHED THEN INSERT (field, ..., entityId) VALUES (vals.field, ..., vals.entityId)
+     *  </pre>
+     *  The parameters are cast because HSQLDB can't otherwise resolve the
+     *  types of the VALUES columns.  Marker components with no fields only
+     *  have the insert clause.
+     */
+    protected String createMergeSql() {
+        StringBuilder sql = new StringBuilder("MERGE INTO " + tableName);
+        sql.append(" USING (VALUES (");
         for( int i = 0; i < dbFieldNames.length; i++ ) {
-            sql.append((i > 0 ? ", " : "") + "?");
+            sql.append("CAST(? AS " + dbFieldTypes[i] + "), ");
         }
-        sql.append(")");
-
-        sql.append(" WHERE entityId = ?");
-        return sql.toString();
-    }
-
-    protected String createInsertSql() {
+        sql.append("CAST(? AS BIGINT)))");
 
-        StringBuilder sql = new StringBuilder("INSERT INTO " + tableName);
-        sql.append(" (");
+        sql.append(" AS vals(");
+        for( String s : dbFieldNames ) {
+            sql.append(s).append(", ");
+        }
+        sql.append("entityId)");
+        sql.append(" ON " + tableName + ".entityId = vals.entityId");
 
-        Joiner.on(", ").appendTo(sql, dbFieldNames);
         if( dbFieldNames.length > 0 ) {
-            // It's possible for a component to have no fields in which case
-            // we don't want the comma.
-            sql.append(", ");
+            sql.append(" WHEN MATCHED THEN UPDATE SET ");
+            for( int i = 0; i < dbFieldNames.length; i++ ) {
+                if( i > 0 ) {
+                    sql.append(", ");
+                }
+                sql.append(dbFieldNames[i] + " = vals." + dbFieldNames[i]);
+            }
         }
-        sql.append("entityId");
-        sql.append(")");
-        sql.append(" VALUES ");
-        sql.append("(");
-        for( int i = 0; i < dbFieldNames.length; i++ ) {
-            sql.append((i > 0 ? ", " : "") + "?");
+
+        sql.append(" WHEN NOT MATCHED THEN INSERT (");
+        for( String s : dbFieldNames ) {
+            sql.append(s).append(", ");
         }
-        if( dbFieldNames.length > 0 ) {
-            sql.append(", ");
+        sql.append("entityId) VALUES (");
+        for( String s : dbFieldNames ) {
+            sql.append("vals." + s).append(", ");
         }
-        sql.append("?");
-        sql.append(")");
+        sql.append("vals.entityId)");
 
         return sql.toString();
     }
@@ -374,66 +434,83 @@ public class ComponentTable<T extends EntityComponent> {
     public void setComponent( SqlSession session, EntityId entityId,
                               T component ) throws SQLException {
 
-        int index;
-        int result;
-        PreparedStatement st;
-
-        // If we don't have any fields then there would never be anything to update
-        // and the update syntax is bad.  So we'll only try to update if the
-        // object has actual fields (ie: not a marker component)
-        if( fields.length > 0 ) {
-            // Try to update the existing component first
-            st = session.prepareStatement(updateSql);
-            index = 1;
-            for( FieldType t : fields ) {
-                index = t.store(component, st, index);
-            }
-
-            st.setObject(index++, entityId.getId());
-            result = st.executeUpdate();
-            if( result > 0 ) {
-                return;
-            }
-        }
-
-        // If that didn't succeed then insert
-        st = session.prepareStatement(insertSql);
-
-        index = 1;
+        PreparedStatement st = session.prepareStatement(mergeSql);
+        int index = 1;
         for( FieldType t : fields ) {
             index = t.store(component, st, index);
         }
-        st.setObject(index++, entityId.getId());
-
-        result = st.executeUpdate();
+        st.setLong(index, entityId.getId());
+        st.executeUpdate();
     }
 
     public boolean removeComponent( SqlSession session, EntityId entityId ) throws SQLException {
 
-        String sql = "DELETE FROM " + tableName + " WHERE entityId=" + entityId.getId();
-        PreparedStatement st = session.prepareStatement(sql.toString());
+        PreparedStatement st = session.prepareStatement(removeSql);
+        st.setLong(1, entityId.getId());
         int result = st.executeUpdate();
         /// a result of 1 means it worked but we can silently fail if it
         // didn't exist.
         return result > 0;
     }
 
-    public T getComponent( SqlSession session, EntityId entityId ) throws SQLException {
+    /**
+     *  Writes all of the specified components with the merge statement
+     *  executed as a single JDBC batch.  Transaction boundaries are up to
+     *  the caller.
+     */
+    public void setComponents( SqlSession session, Map<EntityId, ? extends T> components ) throws SQLException {
 
-        StringBuilder sql = new StringBuilder("SELECT ");
-        if( dbFieldNames.length > 0 ) {
-            Joiner.on(", ").appendTo(sql, dbFieldNames);
-        } else {
-            // 2022-08-16 We need 'some' field just to make the SQL work in
-            // the case of no other fields.  Since we will ignore it anyway
-            // then it doesn't really matter but this seems better than '*'
-            sql.append("entityId");
+        if( components.isEmpty() ) {
+            return;
         }
-        sql.append(" FROM " + tableName);
-        sql.append(" WHERE entityId=?");
+        PreparedStatement st = session.prepareStatement(mergeSql);
+        for( Map.Entry<EntityId, ? extends T> e : components.entrySet() ) {
+            int index = 1;
+            for( FieldType t : fields ) {
+                index = t.store(e.getValue(), st, index);
+            }
+            st.setLong(index, e.getKey().getId());
+            st.addBatch();
+        }
+        st.executeBatch();
+    }
+
+    /**
+     *  Deletes this table's rows for all of the specified entities as
+     *  a single JDBC batch.
+     */
+    public void removeComponents( SqlSession session, List<EntityId> entityIds ) throws SQLException {
+
+        if( entityIds.isEmpty() ) {
+            return;
+        }
+        PreparedStatement st = session.prepareStatement(removeSql);
+        for( EntityId id : entityIds ) {
+            st.setLong(1, id.getId());
+            st.addBatch();
+        }
+        st.executeBatch();
+    }
+
+    /**
+     *  Returns true if the specified entity has a row in this table.
+     */
+    public boolean hasComponent( SqlSession session, EntityId entityId ) throws SQLException {
 
-        PreparedStatement st = session.prepareStatement(sql.toString());
-        st.setObject(1, entityId.getId());
+        PreparedStatement st = session.prepareStatement(existsSql);
+        st.setLong(1, entityId.getId());
+        ResultSet rs = st.executeQuery();
+        try {
+            return rs.next();
+        } finally {
+            rs.close();
+        }
+    }
+
+    public T getComponent( SqlSession session, EntityId entityId ) throws SQLException {
+
+        PreparedStatement st = session.prepareStatement(selectSql);
+        st.setLong(1, entityId.getId());
         ResultSet rs = st.executeQuery();
         try {
             if( rs.next() ) {
@@ -445,15 +522,77 @@ public class ComponentTable<T extends EntityComponent> {
         }
     }
 
-    public Set<EntityId> getEntityIds( SqlSession session ) throws SQLException {
+    /**
+     *  Returns the components for all of the specified entities that have one.
+     *  The IDs are looked up with WHERE entityId IN (...) in chunks.  Chunks
+     *  come in a few fixed sizes and a partial chunk repeats its last ID so that
+     *  only a few different statements are ever prepared.
+     */
+    public Map<EntityId, T> getComponents( SqlSession session,
+                                           Collection<EntityId> entityIds ) throws SQLException {
 
+        Map<EntityId, T> results = new HashMap<>();
+        if( entityIds.isEmpty() ) {
+            return results;
+        }
+
+        long[] ids = new long[entityIds.size()];
+        int count = 0;
+        for( EntityId id : entityIds ) {
+            ids[count++] = id.getId();
+        }
+
+        // The entityId comes after the fields so that the component
+        // factory can still read the fields starting at column 1
+        int idColumn = dbFieldNames.length + 1;
+        for( int start = 0; start < count; ) {
+            int chunk = Math.min(count - start, MAX_IN_CHUNK);
+            int size = MAX_IN_CHUNK;
+            int sqlIndex = componentsInSql.length - 1;
+            while( size / 8 >= chunk && size > 8 ) {
+                size = size / 8;
+                sqlIndex--;
+            }
+            PreparedStatement st = session.prepareStatement(componentsInSql[sqlIndex]);
+            for( int i = 0; i < size; i++ ) {
+                st.setLong(i + 1, ids[start + Math.min(i, chunk - 1)]);
+            }
+            ResultSet rs = st.executeQuery();
+            try {
+                while( rs.next() ) {
+                    EntityId id = new EntityId(rs.getLong(idColumn));
+                    results.put(id, componentFactory.createComponent(rs));
+                }
+            } finally {
+                rs.close();
+            }
+            start += chunk;
+        }
+        return results;
+    }
+
+    protected String getComponentsSql( int size ) {
         StringBuilder sql = new StringBuilder("SELECT ");
-        sql.append(" entityId");
-        sql.append(" FROM " + tableName);
+        for( String s : dbFieldNames ) {
+            sql.append(s).append(", ");
+        }
+        sql.append("entityId FROM " + tableName);
+        sql.append(" WHERE entityId IN (");
+        for( int i = 0; i < size; i++ ) {
+            if( i > 0 ) {
+                sql.append(", ");
+            }
+            sql.append("?");
+        }
+        sql.append(")");
+        return sql.toString();
+    }
+
+    public Set<EntityId> getEntityIds( SqlSession session ) throws SQLException {
 
         Set<EntityId> results = new HashSet<EntityId>();
 
-        PreparedStatement st = session.prepareStatement(sql.toString());
+        PreparedStatement st = session.prepareStatement(entityIdsSql);
         ResultSet rs = st.executeQuery();
         try {
             while( rs.next() ) {
@@ -485,6 +624,84 @@ public class ComponentTable<T extends EntityComponent> {
         return 1;
     }
 
+    protected int appendFilter( String prefix, RangeFilter f, StringBuilder where, List<Object> parms ) {
+
+        FieldType ft = getFieldType(f.getFieldName());
+        String column = prefix + "." + f.getFieldName();
+
+        if( where.length() > 0 ) {
+            where.append(" AND ");
+        }
+
+        Object min = ft.toDbValue(f.getMin());
+        Object max = ft.toDbValue(f.getMax());
+        if( min != null && max != null && f.isMinInclusive() && f.isMaxInclusive() ) {
+            where.append(column + " BETWEEN ? AND ?");
+            parms.add(min);
+            parms.add(max);
+            return 1;
+        }
+
+        int count = 0;
+        if( min != null ) {
+            where.append(column + (f.isMinInclusive() ? " >= ?" : " > ?"));
+            parms.add(min);
+            count++;
+        }
+        if( max != null ) {
+            if( count > 0 ) {
+                where.append(" AND ");
+            }
+            where.append(column + (f.isMaxInclusive() ? " <= ?" : " < ?"));
+            parms.add(max);
+            count++;
+        }
+        if( count == 0 ) {
+            // Fully open range still never matches null values
+            where.append(column + " IS NOT NULL");
+            count++;
+        }
+        return count;
+    }
+
+    protected int appendFilter( String prefix, InFilter f, StringBuilder where, List<Object> parms ) {
+
+        FieldType ft = getFieldType(f.getFieldName());
+        String column = prefix + "." + f.getFieldName();
+
+        if( where.length() > 0 ) {
+            where.append(" AND ");
+        }
+
+        boolean hasNull = false;
+        StringBuilder in = new StringBuilder();
+        if( f.getValues() != null ) {
+            for( Object value : f.getValues() ) {
+                Object dbValue = ft.toDbValue(value);
+                if( dbValue == null ) {
+                    hasNull = true;
+                    continue;
+                }
+                if( in.length() > 0 ) {
+                    in.append(", ");
+                }
+                in.append("?");
+                parms.add(dbValue);
+            }
+        }
+
+        if( in.length() == 0 ) {
+            where.append(hasNull ? column + " IS NULL" : "1 = 0");
+            return 1;
+        }
+        if( hasNull ) {
+            where.append("(" + column + " IN (" + in + ") OR " + column + " IS NULL)");
+        } else {
+            where.append(column + " IN (" + in + ")");
+        }
+        return 1;
+    }
+
     protected int appendFilter( String prefix, OrFilter f, StringBuilder where, List<Object> parms ) {
 
         if( where.length() > 0 )
@@ -543,6 +760,10 @@ public class ComponentTable<T extends EntityComponent> {
     protected int appendFilter( String prefix, ComponentFilter f, StringBuilder where, List<Object> parms ) {
         if( f instanceof FieldFilter ) {
             return appendFilter(prefix, (FieldFilter)f, where, parms);
+        } else if( f instanceof RangeFilter ) {
+            return appendFilter(prefix, (RangeFilter)f, where, parms);
+        } else if( f instanceof InFilter ) {
+            return appendFilter(prefix, (InFilter)f, where, parms);
         } else if( f instanceof OrFilter ) {
             return appendFilter(prefix, (OrFilter)f, where, parms);
         } else if( f instanceof AndFilter ) {
@@ -553,6 +774,9 @@ public class ComponentTable<T extends EntityComponent> {
     }
 
     protected String buildStatement( ComponentFilter filter, List<Object> parms ) {
+        if( filter == null ) {
+            return entityIdsSql;
+        }
         StringBuilder sql = new StringBuilder("SELECT ");
         sql.append(" t1.entityId");
         sql.append(" FROM " + tableName + " t1");
@@ -633,17 +857,7 @@ public class ComponentTable<T extends EntityComponent> {
         // Just grab them all for now
         List<Map.Entry<EntityId,T>> results = new ArrayList<Map.Entry<EntityId,T>>();
 
-        StringBuilder sql = new StringBuilder("SELECT ");
-        if( dbFieldNames.length > 0 ) {
-            Joiner.on(", ").appendTo(sql, dbFieldNames);
-            sql.append(", entityId");
-        } else {
-            // 2022-08-16 For components with no fields, just the entityID is all we need
-            sql.append("entityId");
-        }
-        sql.append(" FROM " + tableName);
-
-        PreparedStatement st = session.prepareStatement(sql.toString());
+        PreparedStatement st = session.prepareStatement(allComponentsSql);
         ResultSet rs = st.executeQuery();
         try {
             while( rs.next() ) {
@@ -144,6 +144,7 @@ public class JoinQuery implements Query {
         buildQuery();
 
         try {
+            parent.flushWrites();
             SqlSession session = parent.getSession();
             PreparedStatement st = prepareStatement(session);
 
@@ -168,6 +169,7 @@ public class JoinQuery implements Query {
         buildQuery();
 
         try {
+            parent.flushWrites();
             SqlSession session = parent.getSession();
             PreparedStatement st = prepareStatement(session);
             ResultSet rs = st.executeQuery();
@@ -36,20 +36,36 @@ package com.simsilica.es.sql;
 
 import com.simsilica.es.base.EntityIdGenerator;
 import java.sql.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- *  Hands out new IDs.
+ *  Hands out new IDs.  IDs are reserved from the database in blocks
+ *  of blockSize by persisting the end of the block and are then handed
+ *  out from memory until the block is used up.  Any IDs left in the
+ *  current block are skipped if the application is restarted or crashes.
  *
  *  @author    Paul Speed
  */
 public class PersistentEntityIdGenerator implements EntityIdGenerator {
 
+    public static final int DEFAULT_BLOCK_SIZE = 100;
+
     private SqlEntityData parent;
     private String tableName = "ENTITY_ID";
-    private long entityId;
+    private volatile int blockSize;
+
+    // The next ID to hand out and the end (exclusive) of the IDs
+    // that have been persisted as reserved.
+    private final AtomicLong next = new AtomicLong();
+    private volatile long limit;
 
     protected PersistentEntityIdGenerator( SqlEntityData parent ) throws SQLException {
+        this(parent, DEFAULT_BLOCK_SIZE);
+    }
+
+    protected PersistentEntityIdGenerator( SqlEntityData parent, int blockSize ) throws SQLException {
         this.parent = parent;
+        setBlockSize(blockSize);
         
         // See if the table exists
         SqlSession session = parent.getSession();
@@ -96,6 +112,25 @@ public class PersistentEntityIdGenerator implements EntityIdGenerator {
     public static PersistentEntityIdGenerator create( SqlEntityData parent ) throws SQLException {
         return new PersistentEntityIdGenerator(parent); 
     } 
+
+    public static PersistentEntityIdGenerator create( SqlEntityData parent, int blockSize ) throws SQLException {
+        return new PersistentEntityIdGenerator(parent, blockSize); 
+    } 
+
+    /**
+     *  Sets the number of IDs reserved with each database update.  A block
+     *  size of 1 persists every ID as it is handed out.
+     */
+    public void setBlockSize( int blockSize ) {
+        if( blockSize < 1 ) {
+            throw new IllegalArgumentException("Block size must be at least 1:" + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
     
     protected void loadId( SqlSession session ) throws SQLException {
     
@@ -103,34 +138,80 @@ public class PersistentEntityIdGenerator implements EntityIdGenerator {
         try {
             ResultSet rs = st.executeQuery("SELECT entityId from " + tableName + " where id=0");
             if( rs.next() ) {
-                entityId = rs.getLong(1);
+                long id = rs.getLong(1);
+                next.set(id);
+                limit = id;
             }
         } finally {
             st.close();
         }    
     }
  
-    public synchronized long nextEntityId() {
-    
-        long result = entityId++;
-        try {
-            SqlSession session = parent.getSession();        
-            Statement st = session.getConnection().createStatement();
-            try {
-                // Write the next value
-                String sql = "UPDATE " + tableName + " SET entityId=" + entityId + " WHERE id=0";
-                int update = st.executeUpdate(sql);
-                if( update != 1 ) {
-                    throw new SQLException("EntityID sequence not updated.");
+    @Override
+    public long nextEntityId() {
+        while( true ) {
+            long id = next.get();
+            if( id < limit ) {
+                if( next.compareAndSet(id, id + 1) ) {
+                    return id;
                 }
-                return result;
-            } finally {
-                st.close();
+            } else {
+                reserve(id + 1);
             }
+        }
+    }
+
+    /**
+     *  Hands out the whole run of IDs from the current block, reserving
+     *  a new block first if there aren't enough left.
+     */
+    @Override
+    public long[] nextEntityIds( int count ) {
+        if( count < 0 ) {
+            throw new IllegalArgumentException("Count cannot be negative:" + count);
+        }
+        long first;
+        while( true ) {
+            long id = next.get();
+            if( id + count <= limit ) {
+                if( next.compareAndSet(id, id + count) ) {
+                    first = id;
+                    break;
+                }
+            } else {
+                reserve(id + count);
+            }
+        }
+        long[] results = new long[count];
+        for( int i = 0; i < count; i++ ) {
+            results[i] = first + i;
+        }
+        return results;
+    }
+
+    /**
+     *  Makes sure that at least all IDs below required have been persisted
+     *  as reserved, moving the limit to required + blockSize - 1 if they
+     *  haven't.
+     */
+    protected synchronized void reserve( long required ) {
+        if( limit >= required ) {
+            // Another thread already got there
+            return;
+        }
+        long newLimit = required + blockSize - 1;
+        try {
+            SqlSession session = parent.getSession();
+            PreparedStatement st = session.prepareStatement("UPDATE " + tableName
+                                                            + " SET entityId=? WHERE id=0");
+            st.setLong(1, newLimit);
+            int update = st.executeUpdate();
+            if( update != 1 ) {
+                throw new SQLException("EntityID sequence not updated.");
+            }
+            limit = newLimit;
         } catch( SQLException e ) {
             throw new RuntimeException("Error persisting entity ID", e);
-        }                
+        }
     }
-    
 }
-
@@ -36,28 +36,56 @@ package com.simsilica.es.sql;
 
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
 
 import com.simsilica.es.ComponentFilter;
 import com.simsilica.es.EntityId;
 import com.simsilica.es.EntityComponent;
 import com.simsilica.es.Query;
 import com.simsilica.es.base.ComponentHandler;
+import com.simsilica.util.ReportSystem;
+import com.simsilica.util.Reporter;
 
 
 /**
- *  Sql-based component handler for in-memory components.
+ *  Sql-based component handler for persistent components.
+ *
+ *  <p>Can optionally keep a bounded read-through cache of components
+ *  (and of entities that don't have the component) in front of the table.
+ *  The cache is updated by this handler's sets and removes so it only
+ *  stays coherent if nothing else writes to the table.</p>
  *
  *  @author    Paul Speed
  */
 public class SqlComponentHandler<T extends EntityComponent> implements ComponentHandler<T> {
 
+    // Cached value for an entity that has no component of this type
+    private static final Object ABSENT = new Object();
+
     private SqlEntityData parent;
     private Class<T> type;
     private ComponentTable<T> table;
 
+    private volatile Cache<EntityId, Object> cache;
+    private boolean reporting;
+
+    // Bumped on every write so that a read-through can tell if it
+    // may have read a value that is already out of date.
+    private final AtomicLong writeVersion = new AtomicLong();
+
+    // Writes for the same entity are ordered so that the cache always
+    // ends up with the last value written to the table.
+    private final Object[] writeLocks = new Object[32];
+
     public SqlComponentHandler( SqlEntityData parent, Class<T> type ) {
         this.parent = parent;
         this.type = type;
+        initLocks();
         try {
             this.table = ComponentTable.create(parent.getSession(), type);
         } catch( SQLException e ) {
@@ -68,6 +96,7 @@ public class SqlComponentHandler<T extends EntityComponent> implements Component
     public SqlComponentHandler( SqlEntityData parent, Class<T> type, SqlComponentFactory<T> factory ) {
         this.parent = parent;
         this.type = type;
+        initLocks();
         try {
             this.table = new ComponentTable<>(type, factory);
             table.initialize(parent.getSession());
@@ -76,16 +105,113 @@ public class SqlComponentHandler<T extends EntityComponent> implements Component
         }
     }
 
+    private void initLocks() {
+        for( int i = 0; i < writeLocks.length; i++ ) {
+            writeLocks[i] = new Object();
+        }
+    }
+
     protected SqlSession getSession() throws SQLException {
         return parent.getSession();
     }
 
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     *  Turns on a component cache holding at most maximumSize entities
+     *  or turns caching off if maximumSize is 0.
+     */
+    public void setCacheSize( long maximumSize ) {
+        if( maximumSize <= 0 ) {
+            setCache(null);
+            return;
+        }
+        setCache(CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build());
+    }
+
+    /**
+     *  Turns on a component cache that evicts once the total weight of the
+     *  cached components exceeds maximumWeight.  Entities without the
+     *  component are cached with a weight of 1.
+     */
+    public void setCacheWeight( long maximumWeight, Weigher<? super EntityId, ? super T> weigher ) {
+        Weigher<EntityId, Object> w = new Weigher<EntityId, Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public int weigh( EntityId id, Object value ) {
+                return value == ABSENT ? 1 : weigher.weigh(id, (T)value);
+            }
+        };
+        setCache(CacheBuilder.newBuilder().maximumWeight(maximumWeight).weigher(w).recordStats().build());
+    }
+
+    protected synchronized void setCache( Cache<EntityId, Object> cache ) {
+        writeVersion.incrementAndGet();
+        this.cache = cache;
+        if( cache != null && !reporting ) {
+            reporting = true;
+            ReportSystem.registerCacheReporter(new CacheReporter());
+        }
+    }
+
+    /**
+     *  Returns the component cache stats or null if caching is not enabled.
+     */
+    public CacheStats getCacheStats() {
+        Cache<EntityId, Object> c = cache;
+        return c == null ? null : c.stats();
+    }
+
+    private Object writeLock( EntityId entityId ) {
+        return writeLocks[entityId.hashCode() & (writeLocks.length - 1)];
+    }
+
+    @SuppressWarnings("unchecked")
+    private T unwrap( Object value ) {
+        return value == ABSENT ? null : (T)value;
+    }
+
     public Query createQuery( ComponentFilter<T> filter ) {
         return new TableQuery<T>(parent, type, table, filter);
     }
 
+    /**
+     *  Returns the pending write-behind value for the entity's component,
+     *  SqlWriteQueue.REMOVED, or null if there is no pending write.
+     */
+    protected Object getPending( EntityId entityId ) {
+        SqlWriteQueue queue = parent.getWriteQueue();
+        return queue == null ? null : queue.getPending(table, entityId);
+    }
+
     @Override
     public void setComponent( EntityId entityId, T component ) {
+        Cache<EntityId, Object> c = cache;
+        if( c == null ) {
+            writeComponent(entityId, component);
+            return;
+        }
+        synchronized( writeLock(entityId) ) {
+            writeVersion.incrementAndGet();
+            try {
+                writeComponent(entityId, component);
+            } catch( RuntimeException e ) {
+                // Don't know what state the row is in now
+                c.invalidate(entityId);
+                throw e;
+            }
+            c.put(entityId, component);
+        }
+    }
+
+    protected void writeComponent( EntityId entityId, T component ) {
+        SqlWriteQueue queue = parent.getWriteQueue();
+        if( queue != null ) {
+            queue.setComponent(table, entityId, component);
+            return;
+        }
         try {
             table.setComponent(getSession(), entityId, component);
         } catch( SQLException e ) {
@@ -96,7 +222,37 @@ public class SqlComponentHandler<T extends EntityComponent> implements Component
 
     @Override
     public boolean removeComponent( EntityId entityId ) {
+        Cache<EntityId, Object> c = cache;
+        if( c == null ) {
+            return deleteComponent(entityId);
+        }
+        synchronized( writeLock(entityId) ) {
+            writeVersion.incrementAndGet();
+            boolean result;
+            try {
+                result = deleteComponent(entityId);
+            } catch( RuntimeException e ) {
+                c.invalidate(entityId);
+                throw e;
+            }
+            c.put(entityId, ABSENT);
+            return result;
+        }
+    }
+
+    protected boolean deleteComponent( EntityId entityId ) {
         try {
+            SqlWriteQueue queue = parent.getWriteQueue();
+            if( queue != null ) {
+                // Still need to know if there was something to remove
+                Object pending = queue.getPending(table, entityId);
+                boolean exists = pending != null ? pending != SqlWriteQueue.REMOVED
+                                                 : table.hasComponent(getSession(), entityId);
+                if( exists ) {
+                    queue.removeComponent(table, entityId);
+                }
+                return exists;
+            }
             return table.removeComponent(getSession(), entityId);
         } catch( SQLException e ) {
             throw new RuntimeException("Error removing component type:" + type
@@ -106,6 +262,30 @@ public class SqlComponentHandler<T extends EntityComponent> implements Component
 
     @Override
     public T getComponent( EntityId entityId ) {
+        Cache<EntityId, Object> c = cache;
+        if( c == null ) {
+            return readComponent(entityId);
+        }
+        Object value = c.getIfPresent(entityId);
+        if( value != null ) {
+            return unwrap(value);
+        }
+
+        long version = writeVersion.get();
+        T result = readComponent(entityId);
+        if( writeVersion.get() == version ) {
+            // Never replace a value that a write put in the meantime
+            c.asMap().putIfAbsent(entityId, result == null ? ABSENT : result);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected T readComponent( EntityId entityId ) {
+        Object pending = getPending(entityId);
+        if( pending != null ) {
+            return pending == SqlWriteQueue.REMOVED ? null : (T)pending;
+        }
         try {
             return (T)table.getComponent(getSession(), entityId);
         } catch( SQLException e ) {
@@ -114,9 +294,75 @@ public class SqlComponentHandler<T extends EntityComponent> implements Component
         }
     }
 
+    @Override
+    public Map<EntityId, T> getComponents( Collection<EntityId> entityIds ) {
+        Cache<EntityId, Object> c = cache;
+        if( c == null ) {
+            return readComponents(entityIds);
+        }
+
+        Map<EntityId, T> results = new HashMap<>();
+        List<EntityId> misses = new ArrayList<>();
+        for( EntityId id : entityIds ) {
+            Object value = c.getIfPresent(id);
+            if( value == null ) {
+                misses.add(id);
+            } else if( value != ABSENT ) {
+                results.put(id, unwrap(value));
+            }
+        }
+        if( misses.isEmpty() ) {
+            return results;
+        }
+
+        long version = writeVersion.get();
+        Map<EntityId, T> loaded = readComponents(misses);
+        results.putAll(loaded);
+        if( writeVersion.get() == version ) {
+            for( EntityId id : misses ) {
+                T value = loaded.get(id);
+                c.asMap().putIfAbsent(id, value == null ? ABSENT : value);
+            }
+        }
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    protected Map<EntityId, T> readComponents( Collection<EntityId> entityIds ) {
+        SqlWriteQueue queue = parent.getWriteQueue();
+        if( queue == null ) {
+            try {
+                return table.getComponents(getSession(), entityIds);
+            } catch( SQLException e ) {
+                throw new RuntimeException("Error retrieving component type:" + type
+                                            + " for " + entityIds.size() + " entities", e);
+            }
+        }
+
+        // Pending writes take precedence over whatever is in the table
+        Map<EntityId, T> results = new HashMap<>();
+        List<EntityId> remaining = new ArrayList<>(entityIds.size());
+        for( EntityId id : entityIds ) {
+            Object pending = queue.getPending(table, id);
+            if( pending == null ) {
+                remaining.add(id);
+            } else if( pending != SqlWriteQueue.REMOVED ) {
+                results.put(id, (T)pending);
+            }
+        }
+        try {
+            results.putAll(table.getComponents(getSession(), remaining));
+            return results;
+        } catch( SQLException e ) {
+            throw new RuntimeException("Error retrieving component type:" + type
+                                        + " for " + entityIds.size() + " entities", e);
+        }
+    }
+
     @Override
     public Set<EntityId> getEntities() {
         try {
+            parent.flushWrites();
             return table.getEntityIds(getSession());
         } catch( SQLException e ) {
             throw new RuntimeException("Error retrieving component entities for type:" + type);
@@ -130,6 +376,7 @@ public class SqlComponentHandler<T extends EntityComponent> implements Component
             return getEntities();
         }
         try {
+            parent.flushWrites();
             return table.getEntityIds(getSession(), filter);
         } catch( SQLException e ) {
             throw new RuntimeException("Error retrieving component entities for type:" + type, e);
@@ -143,9 +390,23 @@ public class SqlComponentHandler<T extends EntityComponent> implements Component
             return null;
         }
         try {
+            parent.flushWrites();
             return table.getEntityId(getSession(), filter);
         } catch( SQLException e ) {
             throw new RuntimeException("Error retrieving entity for filter:" + filter, e);
         }
     }
+
+    private class CacheReporter implements Reporter {
+
+        @Override
+        public void printReport( String reportType, java.io.PrintWriter out ) {
+            Cache<EntityId, Object> c = cache;
+            if( c == null ) {
+                return;
+            }
+            out.println("SqlComponentHandler[" + type.getSimpleName() + "]->size:" + c.size()
+                            + " stats:" + c.stats());
+        }
+    }
 }
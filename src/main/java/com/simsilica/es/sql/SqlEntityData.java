@@ -37,15 +37,21 @@ package com.simsilica.es.sql;
 import java.io.File;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.cache.Weigher;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.simsilica.es.EntityComponent;
+import com.simsilica.es.EntityId;
 import com.simsilica.es.PersistentComponent;
 import com.simsilica.es.PersistentEntityData;
 import com.simsilica.es.base.ComponentHandler;
 import com.simsilica.es.base.DefaultEntityData;
+import com.simsilica.util.ReportSystem;
+import com.simsilica.util.Reporter;
 
 
 /**
@@ -60,7 +66,11 @@ public class SqlEntityData extends DefaultEntityData implements PersistentEntity
     
     private String dbPath;
     private ThreadLocal<SqlSession> cachedSession = new ThreadLocal<SqlSession>();
+    private final AtomicInteger sessionCount = new AtomicInteger();
+    private final SqlSession.StatementStats statementStats = new SqlSession.StatementStats();
     private Set<Class> persistentTypes = new HashSet<>();
+    private volatile SqlWriteQueue writeQueue;
+    private volatile long defaultCacheSize;
  
     public SqlEntityData( File dbPath, long writeDelay ) throws SQLException {
         this(dbPath.toURI().toString(), writeDelay);
@@ -82,6 +92,9 @@ public class SqlEntityData extends DefaultEntityData implements PersistentEntity
         
         this.dbPath = dbPath;
 
+        ReportSystem.registerCacheReporter(new SessionReporter());
+        ReportSystem.registerCacheReporter(new QueueReporter());
+
         try {
             // Hard code this stuff for now.
             Class.forName("org.hsqldb.jdbc.JDBCDriver");
@@ -109,9 +122,108 @@ public class SqlEntityData extends DefaultEntityData implements PersistentEntity
     public <T extends EntityComponent> void markPersistentType( Class<T> type, SqlComponentFactory<T> factory ) {
         markPersistentType(type);
 
-        super.registerComponentHandler(type, new SqlComponentHandler<>(this, type, factory));
+        super.registerComponentHandler(type, createHandler(type, factory));
+    }
+
+    /**
+     *  Sets the component cache size that SQL component handlers get when
+     *  they are created.  Defaults to 0, no caching.  Handlers that already
+     *  exist are not affected.
+     */
+    public void setDefaultComponentCacheSize( long maximumSize ) {
+        this.defaultCacheSize = maximumSize;
+    }
+
+    public long getDefaultComponentCacheSize() {
+        return defaultCacheSize;
+    }
+
+    /**
+     *  Sets the maximum number of entities for which components of the
+     *  specified persistent type are cached in memory.  0 turns off
+     *  caching for the type.  Caching should be configured before
+     *  components of that type are being written.
+     */
+    public <T extends EntityComponent> void setComponentCacheSize( Class<T> type, long maximumSize ) {
+        getSqlHandler(type).setCacheSize(maximumSize);
+    }
+
+    /**
+     *  Caches components of the specified persistent type in memory up to
+     *  the specified total weight as measured by the weigher.
+     */
+    public <T extends EntityComponent> void setComponentCacheWeight( Class<T> type, long maximumWeight,
+                                                                     Weigher<? super EntityId, ? super T> weigher ) {
+        getSqlHandler(type).setCacheWeight(maximumWeight, weigher);
+    }
+
+    protected <T extends EntityComponent> SqlComponentHandler<T> getSqlHandler( Class<T> type ) {
+        ComponentHandler<T> handler = getHandler(type);
+        if( !(handler instanceof SqlComponentHandler) ) {
+            throw new IllegalArgumentException("Type is not persistent:" + type);
+        }
+        return (SqlComponentHandler<T>)handler;
+    }
+
+    protected <T extends EntityComponent> SqlComponentHandler<T> createHandler( Class<T> type,
+                                                                               SqlComponentFactory<T> factory ) {
+        SqlComponentHandler<T> result = new SqlComponentHandler<>(this, type, factory);
+        if( defaultCacheSize > 0 ) {
+            result.setCacheSize(defaultCacheSize);
+        }
+        return result;
     }
  
+    /**
+     *  Turns on write-behind persistence where component sets and removes
+     *  are queued and written by a background thread every flushInterval
+     *  milliseconds instead of on the calling thread.  Reads still see
+     *  the queued values and queries flush the queue before running.
+     *  A flushInterval of 0 turns write-behind off again after writing
+     *  anything that is still queued.  This should not be changed while
+     *  other threads are setting components.
+     */
+    public synchronized void setWriteBehind( long flushInterval ) {
+        SqlWriteQueue old = writeQueue;
+        if( old != null && old.getFlushInterval() == flushInterval ) {
+            return;
+        }
+        writeQueue = flushInterval > 0 ? new SqlWriteQueue(this, flushInterval) : null;
+        if( old != null ) {
+            try {
+                old.close();
+            } catch( SQLException e ) {
+                throw new RuntimeException("Error flushing pending component writes", e);
+            }
+        }
+    }
+
+    /**
+     *  Returns the statement cache totals of all of this entity data's
+     *  sessions.
+     */
+    public SqlSession.StatementStats getStatementStats() {
+        return statementStats;
+    }
+
+    /**
+     *  Returns the write-behind queue or null if write-behind is not enabled.
+     */
+    public SqlWriteQueue getWriteQueue() {
+        return writeQueue;
+    }
+
+    /**
+     *  Writes any queued component changes to the database before
+     *  returning.  Does nothing if write-behind is not enabled.
+     */
+    public void flushWrites() throws SQLException {
+        SqlWriteQueue queue = writeQueue;
+        if( queue != null ) {
+            queue.flush();
+        }
+    }
+
     protected void execute( String statement ) throws SQLException {
         SqlSession session = getSession();
         Statement st = session.getConnection().createStatement();
@@ -137,15 +249,31 @@ public class SqlEntityData extends DefaultEntityData implements PersistentEntity
  
         log.info("Created connection.  Autocommit:" + conn.getAutoCommit());
                                                                                      
-        session = new SqlSession(conn);
+        session = new SqlSession(conn, SqlSession.DEFAULT_MAX_STATEMENTS, statementStats);
         cachedSession.set(session);        
+        sessionCount.incrementAndGet();
         return session;
     } 
 
+    /**
+     *  Releases the calling thread's session and closes its connection.
+     *  A later getSession() on the same thread will create a new one.
+     */
+    protected void closeSession() throws SQLException {
+        SqlSession session = cachedSession.get();
+        if( session == null ) {
+            return;
+        }
+        cachedSession.remove();
+        sessionCount.decrementAndGet();
+        session.release();
+        session.getConnection().close();
+    }
+
     @Override
     protected <T extends EntityComponent> ComponentHandler<T> lookupDefaultHandler( Class<T> type ) {
         if( PersistentComponent.class.isAssignableFrom(type) || persistentTypes.contains(type) ) {
-            return new SqlComponentHandler<T>(this, type, lookupDefaultFactory(type));
+            return createHandler(type, lookupDefaultFactory(type));
         }
         return super.lookupDefaultHandler(type);
     }
@@ -157,14 +285,53 @@ public class SqlEntityData extends DefaultEntityData implements PersistentEntity
     @Override
     public void close() {   
         super.close();
+
+        // Failed writes should not keep the database from shutting down
+        SQLException writeError = null;
+        SqlWriteQueue queue = writeQueue;
+        if( queue != null ) {
+            writeQueue = null;
+            try {
+                queue.close();
+            } catch( SQLException e ) {
+                log.error("Error writing pending components on close", e);
+                writeError = e;
+            }
+        }
+
         try {
             // Shut the database down
-            SqlSession session = getSession();
             execute("SHUTDOWN COMPACT");
-            session.getConnection().close();    
+            closeSession();
         } catch( SQLException e ) {
             throw new RuntimeException("Database was not shutdown cleanly", e);
         }
+        if( writeError != null ) {
+            throw new RuntimeException("Pending component writes were lost", writeError);
+        }
+    }
+
+    private class SessionReporter implements Reporter {
+
+        @Override
+        public void printReport( String type, java.io.PrintWriter out ) {
+            out.println("SqlEntityData->sessions:" + sessionCount.get()
+                            + " cached statements:" + statementStats.getCachedStatementCount()
+                            + " hits:" + statementStats.getCacheHits()
+                            + " misses:" + statementStats.getCacheMisses()
+                            + " evictions:" + statementStats.getCacheEvictions());
+        }
+    }
+
+    private class QueueReporter implements Reporter {
+
+        @Override
+        public void printReport( String type, java.io.PrintWriter out ) {
+            SqlWriteQueue queue = writeQueue;
+            if( queue != null ) {
+                queue.printReport(out);
+            }
+        }
     }
     
 }
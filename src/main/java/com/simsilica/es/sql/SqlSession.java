@@ -36,26 +36,95 @@ package com.simsilica.es.sql;
 
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
+ *  Wraps a connection along with a cache of its prepared statements.
+ *  The cache is LRU bounded so that sessions used for a long time with
+ *  many different queries don't accumulate statements forever.  Statements
+ *  that fall out of the cache are closed.  Sessions can share a
+ *  StatementStats so that totals can be reported without having to
+ *  keep track of every session.
  *
  *  @author    Paul Speed
  */
 public class SqlSession {
 
+    public static final int DEFAULT_MAX_STATEMENTS = 256;
+
     private Connection conn;
+    private final int maxStatements;
+
+    private final Map<String,PreparedStatement> statementCache;
+    private final StatementStats stats;
+
+    // Stats
+    private volatile long hits;
+    private volatile long misses;
+    private volatile long evictions;
 
-    private Map<String,PreparedStatement> statementCache = new HashMap<String,PreparedStatement>();
-    
     public SqlSession( Connection conn ) {
+        this(conn, DEFAULT_MAX_STATEMENTS);
+    }
+
+    public SqlSession( Connection conn, int maxStatements ) {
+        this(conn, maxStatements, null);
+    }
+
+    /**
+     *  Creates a session that also counts its statement cache activity
+     *  in the specified shared stats, which can be null.
+     */
+    public SqlSession( Connection conn, int maxStatements, StatementStats stats ) {
         this.conn = conn;
+        this.maxStatements = maxStatements;
+        this.stats = stats;
+        this.statementCache = new LinkedHashMap<String,PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String,PreparedStatement> eldest ) {
+                if( size() <= SqlSession.this.maxStatements ) {
+                    return false;
+                }
+                evictions++;
+                if( stats != null ) {
+                    stats.evictions.incrementAndGet();
+                    stats.cached.decrementAndGet();
+                }
+                try {
+                    eldest.getValue().close();
+                } catch( SQLException e ) {
+                    // Nothing else to do with it anyway
+                }
+                return true;
+            }
+        };
     }
 
     public Connection getConnection() {
         return conn;
     }
 
+    public int getMaxStatements() {
+        return maxStatements;
+    }
+
+    public int getCachedStatementCount() {
+        return statementCache.size();
+    }
+
+    public long getCacheHits() {
+        return hits;
+    }
+
+    public long getCacheMisses() {
+        return misses;
+    }
+
+    public long getCacheEvictions() {
+        return evictions;
+    }
+
     public PreparedStatement prepareStatement( String sql ) throws SQLException {
         return prepareStatement(sql, true);
     }
@@ -73,18 +142,29 @@ public class SqlSession {
                                                
         PreparedStatement result = statementCache.get(sql);
         if( result != null ) {
+            hits++;
+            if( stats != null ) {
+                stats.hits.incrementAndGet();
+            }
             result.clearParameters(); 
             return result;
         } 
+        misses++;
+        if( stats != null ) {
+            stats.misses.incrementAndGet();
+        }
 
         result = conn.prepareStatement(sql, autoGeneratedKeys);
         if( cache ) {
+            if( stats != null ) {
+                stats.cached.incrementAndGet();
+            }
             statementCache.put(sql, result);
         }
         
         return result;            
     }
-    
+
     /**
      *  Releases any resources managed by this session.  This
      *  does not close any underlying connections.
@@ -93,7 +173,40 @@ public class SqlSession {
         for( PreparedStatement st : statementCache.values() ) {
             st.close();
         }
+        if( stats != null ) {
+            stats.cached.addAndGet(-statementCache.size());
+        }
         statementCache.clear();
     }
 
+    /**
+     *  Statement cache totals for any number of sessions.
+     */
+    public static class StatementStats {
+        private final AtomicLong cached = new AtomicLong();
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+
+        /**
+         *  Returns the number of statements currently cached by sessions
+         *  that have not been released.
+         */
+        public long getCachedStatementCount() {
+            return cached.get();
+        }
+
+        public long getCacheHits() {
+            return hits.get();
+        }
+
+        public long getCacheMisses() {
+            return misses.get();
+        }
+
+        public long getCacheEvictions() {
+            return evictions.get();
+        }
+    }
+
 }
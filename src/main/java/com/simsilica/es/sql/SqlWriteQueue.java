@@ -0,0 +1,508 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.sql;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.simsilica.es.EntityComponent;
+import com.simsilica.es.EntityId;
+
+/**
+ *  Write-behind buffer for persistent component writes.  Sets and removes
+ *  are collected per table and entity so that only the last write for any
+ *  given component is kept.  A background thread periodically writes
+ *  everything that has accumulated as JDBC batches inside one transaction.
+ *
+ *  <p>Writes remain visible through getPending() until they have been
+ *  committed.  flush() can be called from any thread to write the pending
+ *  changes immediately, for example before running a query.</p>
+ *
+ *  <p>If a batch fails then it is rolled back and its writes are retried
+ *  one at a time so that a single bad write cannot hold up the rest.
+ *  Writes that still fail are put back in front of any newer ones and
+ *  retried on the next flush until they have failed maxAttempts times,
+ *  after which they are dropped and logged.  If the connection itself is
+ *  no longer valid then the writes are put back without counting an
+ *  attempt and flush() throws.</p>
+ *
+ *  @author    Paul Speed
+ */
+public class SqlWriteQueue {
+
+    static Logger log = LoggerFactory.getLogger(SqlWriteQueue.class);
+
+    /**
+     *  Pending value for a component that has been removed.
+     */
+    static final Object REMOVED = new Object();
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    private final SqlEntityData parent;
+    private final long flushInterval;
+    private volatile int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+    private final Object lock = new Object();
+    private Map<Key, Object> pending = new LinkedHashMap<>();
+    private long oldestPending;
+
+    // Failed attempts of writes that failed on their own.  Only accessed
+    // while holding the flushLock.
+    private final Map<Key, Integer> failures = new HashMap<>();
+
+    // The writes of the flush that is currently in progress.  Only ever
+    // replaced, never modified, once published.
+    private volatile Map<Key, Object> inFlight = Collections.emptyMap();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Thread writer;
+    private final Object wakeup = new Object();
+    private volatile boolean running = true;
+
+    // Stats
+    private volatile long flushCount;
+    private volatile long writeCount;
+    private volatile long coalescedCount;
+    private volatile long errorCount;
+    private volatile long droppedCount;
+    private volatile long lastLag;
+    private volatile long maxLag;
+    private volatile long lastFlushTime;
+
+    /**
+     *  Creates a write queue that flushes pending writes every flushInterval
+     *  milliseconds.
+     */
+    public SqlWriteQueue( SqlEntityData parent, long flushInterval ) {
+        if( flushInterval <= 0 ) {
+            throw new IllegalArgumentException("Flush interval must be greater than 0:" + flushInterval);
+        }
+        this.parent = parent;
+        this.flushInterval = flushInterval;
+        this.writer = new Thread(new Writer(), "SqlWriteQueue");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    /**
+     *  Sets how many times a write that fails on its own is retried
+     *  before it is dropped.  Defaults to DEFAULT_MAX_ATTEMPTS.
+     */
+    public void setMaxAttempts( int maxAttempts ) {
+        if( maxAttempts < 1 ) {
+            throw new IllegalArgumentException("Max attempts must be at least 1:" + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setComponent( ComponentTable table, EntityId entityId, EntityComponent component ) {
+        add(new Key(table, entityId), component);
+    }
+
+    public void removeComponent( ComponentTable table, EntityId entityId ) {
+        add(new Key(table, entityId), REMOVED);
+    }
+
+    private void add( Key key, Object value ) {
+        if( !running ) {
+            throw new IllegalStateException("Write queue is closed");
+        }
+        synchronized( lock ) {
+            if( pending.isEmpty() ) {
+                oldestPending = System.nanoTime();
+            }
+            if( pending.put(key, value) != null ) {
+                coalescedCount++;
+            }
+        }
+    }
+
+    /**
+     *  Returns the not yet committed value for the specified component,
+     *  REMOVED if its pending write is a remove, or null if there is no
+     *  pending write for it.
+     */
+    public Object getPending( ComponentTable table, EntityId entityId ) {
+        Key key = new Key(table, entityId);
+        synchronized( lock ) {
+            // Both under the same lock because a failed flush moves writes
+            // from inFlight back to pending in one step
+            Object result = pending.get(key);
+            if( result != null ) {
+                return result;
+            }
+            return inFlight.get(key);
+        }
+    }
+
+    /**
+     *  Returns the number of writes waiting to be flushed.
+     */
+    public int getPendingCount() {
+        synchronized( lock ) {
+            return pending.size() + inFlight.size();
+        }
+    }
+
+    /**
+     *  Returns how long in milliseconds the oldest unflushed write has been
+     *  waiting or 0 if there are no pending writes.
+     */
+    public long getFlushLag() {
+        synchronized( lock ) {
+            if( pending.isEmpty() ) {
+                return 0;
+            }
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - oldestPending);
+        }
+    }
+
+    /**
+     *  Returns how long in milliseconds the writes committed by the last
+     *  flush had been waiting.
+     */
+    public long getLastFlushLag() {
+        return lastLag;
+    }
+
+    public long getMaxFlushLag() {
+        return maxLag;
+    }
+
+    /**
+     *  Returns the number of writes that were dropped after failing
+     *  maxAttempts times.
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     *  Writes all pending changes to the database on the calling thread,
+     *  waiting for any flush that is already in progress.  Throws if the
+     *  database could not be reached, in which case the writes that failed
+     *  are still pending.
+     */
+    public void flush() throws SQLException {
+        flushLock.lock();
+        try {
+            Map<Key, Object> batch;
+            long start;
+            synchronized( lock ) {
+                if( pending.isEmpty() ) {
+                    return;
+                }
+                batch = pending;
+                start = oldestPending;
+                pending = new LinkedHashMap<>();
+                inFlight = batch;
+            }
+
+            long time = System.nanoTime();
+            int written = batch.size();
+            try {
+                write(batch);
+                if( !failures.isEmpty() ) {
+                    failures.keySet().removeAll(batch.keySet());
+                }
+            } catch( SQLException | RuntimeException e ) {
+                errorCount++;
+                log.warn("Error writing batch of " + batch.size() + " components, retrying individually", e);
+                Map<Key, Object> failed = new LinkedHashMap<>();
+                SQLException last = writeEach(batch, failed);
+                if( !failed.isEmpty() && !isConnectionValid() ) {
+                    // Not the fault of the individual writes
+                    restore(failed, start);
+                    throw last;
+                }
+                written -= failed.size();
+                restore(retain(failed), start);
+            }
+            inFlight = Collections.emptyMap();
+
+            long end = System.nanoTime();
+            flushCount++;
+            writeCount += written;
+            lastFlushTime = end - time;
+            lastLag = TimeUnit.NANOSECONDS.toMillis(end - start);
+            maxLag = Math.max(maxLag, lastLag);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     *  Puts the specified writes back in front of any that were queued
+     *  while they were being written.  Newer writes win over the failed ones.
+     */
+    private void restore( Map<Key, Object> failed, long start ) {
+        synchronized( lock ) {
+            if( !failed.isEmpty() ) {
+                Map<Key, Object> restored = new LinkedHashMap<>(failed);
+                restored.putAll(pending);
+                pending = restored;
+                oldestPending = start;
+            }
+            inFlight = Collections.emptyMap();
+        }
+    }
+
+    private boolean isConnectionValid() {
+        try {
+            return parent.getSession().getConnection().isValid(5);
+        } catch( SQLException e ) {
+            return false;
+        }
+    }
+
+    /**
+     *  Writes each of the batch's writes in its own transaction, collecting
+     *  the ones that fail.  Returns the last error or null if there was none.
+     */
+    private SQLException writeEach( Map<Key, Object> batch, Map<Key, Object> failed ) {
+        SQLException last = null;
+        for( Map.Entry<Key, Object> e : batch.entrySet() ) {
+            try {
+                write(Collections.singletonMap(e.getKey(), e.getValue()));
+                failures.remove(e.getKey());
+            } catch( SQLException ex ) {
+                failed.put(e.getKey(), e.getValue());
+                last = ex;
+            } catch( RuntimeException ex ) {
+                failed.put(e.getKey(), e.getValue());
+                last = new SQLException("Error writing component", ex);
+            }
+        }
+        return last;
+    }
+
+    /**
+     *  Counts a failed attempt against each of the specified writes and
+     *  removes the ones that have run out of attempts.  Returns the writes
+     *  that should be retried.
+     */
+    private Map<Key, Object> retain( Map<Key, Object> failed ) {
+        for( Iterator<Map.Entry<Key, Object>> it = failed.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Key, Object> e = it.next();
+            Key key = e.getKey();
+            Integer count = failures.get(key);
+            int attempts = count == null ? 1 : count + 1;
+            if( attempts < maxAttempts ) {
+                failures.put(key, attempts);
+                continue;
+            }
+            failures.remove(key);
+            it.remove();
+            droppedCount++;
+            Object value = e.getValue();
+            log.error("Dropping write for " + key.entityId + " in " + key.table.getTableName()
+                        + " after " + attempts + " failed attempts:"
+                        + (value == REMOVED ? "remove" : value));
+        }
+        return failed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void write( Map<Key, Object> batch ) throws SQLException {
+
+        // Group the writes by table
+        Map<ComponentTable, TableWrites> tables = new LinkedHashMap<>();
+        for( Map.Entry<Key, Object> e : batch.entrySet() ) {
+            Key key = e.getKey();
+            TableWrites writes = tables.get(key.table);
+            if( writes == null ) {
+                writes = new TableWrites();
+                tables.put(key.table, writes);
+            }
+            if( e.getValue() == REMOVED ) {
+                writes.removes.add(key.entityId);
+            } else {
+                writes.sets.put(key.entityId, (EntityComponent)e.getValue());
+            }
+        }
+
+        SqlSession session = parent.getSession();
+        Connection conn = session.getConnection();
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try {
+            for( Map.Entry<ComponentTable, TableWrites> e : tables.entrySet() ) {
+                ComponentTable table = e.getKey();
+                TableWrites writes = e.getValue();
+                table.removeComponents(session, writes.removes);
+                table.setComponents(session, writes.sets);
+            }
+            conn.commit();
+        } catch( SQLException | RuntimeException e ) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     *  Stops the background writer and writes anything still pending.
+     *  Failing writes are retried up to maxAttempts times.  Throws if
+     *  some writes could still not be written, in which case they are lost.
+     */
+    public void close() throws SQLException {
+        if( !running ) {
+            return;
+        }
+        running = false;
+        synchronized( wakeup ) {
+            wakeup.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+        }
+
+        SQLException last = null;
+        for( int i = 0; i < maxAttempts && getPendingCount() > 0; i++ ) {
+            try {
+                flush();
+                last = null;
+            } catch( SQLException e ) {
+                last = e;
+            }
+        }
+        int lost = getPendingCount();
+        if( lost > 0 ) {
+            synchronized( lock ) {
+                pending = new LinkedHashMap<>();
+            }
+            droppedCount += lost;
+            throw new SQLException("Could not write " + lost + " pending component writes", last);
+        }
+    }
+
+    private static class Key {
+        final ComponentTable table;
+        final EntityId entityId;
+
+        public Key( ComponentTable table, EntityId entityId ) {
+            this.table = table;
+            this.entityId = entityId;
+        }
+
+        @Override
+        public int hashCode() {
+            return table.hashCode() * 31 + entityId.hashCode();
+        }
+
+        @Override
+        public boolean equals( Object o ) {
+            if( o == this ) {
+                return true;
+            }
+            if( !(o instanceof Key) ) {
+                return false;
+            }
+            Key other = (Key)o;
+            return table == other.table && entityId.equals(other.entityId);
+        }
+    }
+
+    private static class TableWrites {
+        final List<EntityId> removes = new ArrayList<>();
+        final Map<EntityId, EntityComponent> sets = new LinkedHashMap<>();
+    }
+
+    private class Writer implements Runnable {
+        @Override
+        public void run() {
+            while( running ) {
+                synchronized( wakeup ) {
+                    try {
+                        if( running ) {
+                            wakeup.wait(flushInterval);
+                        }
+                    } catch( InterruptedException e ) {
+                        break;
+                    }
+                }
+                if( !running ) {
+                    break;
+                }
+                try {
+                    flush();
+                } catch( SQLException | RuntimeException e ) {
+                    log.error("Error flushing pending component writes", e);
+                }
+            }
+            try {
+                // This thread's connection is no longer needed
+                parent.closeSession();
+            } catch( SQLException e ) {
+                log.warn("Error closing write queue connection", e);
+            }
+        }
+    }
+
+    /**
+     *  Prints a one line summary of the queue's stats.
+     */
+    public void printReport( java.io.PrintWriter out ) {
+        out.println("SqlWriteQueue->pending:" + getPendingCount()
+                        + " lag:" + getFlushLag() + " ms"
+                        + " last lag:" + lastLag + " ms"
+                        + " max lag:" + maxLag + " ms"
+                        + " last flush:" + TimeUnit.NANOSECONDS.toMillis(lastFlushTime) + " ms"
+                        + " flushes:" + flushCount
+                        + " writes:" + writeCount
+                        + " coalesced:" + coalescedCount
+                        + " errors:" + errorCount
+                        + " dropped:" + droppedCount);
+    }
+}
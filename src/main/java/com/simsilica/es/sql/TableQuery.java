@@ -87,6 +87,7 @@ public class TableQuery<T extends EntityComponent> implements Query {
 
     public Set<EntityId> execute() {
         try {
+            parent.flushWrites();
             return table.getEntityIds(parent.getSession(), filter);
         } catch( SQLException e ) {
             throw new RuntimeException("Error retrieving component entities for type:" + type + ", filter:" + filter);
@@ -95,6 +96,7 @@ public class TableQuery<T extends EntityComponent> implements Query {
 
     public EntityId findFirst() {
         try {
+            parent.flushWrites();
             return table.getEntityId(parent.getSession(), filter);
         } catch( SQLException e ) {
             throw new RuntimeException("Error finding component entity for type:" + type + ", filter:" + filter);
@@ -0,0 +1,370 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.util;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ *  A concurrent map of primitive long keys to non-null object values
+ *  implemented as a segmented open-addressing hash table.  Avoids the
+ *  key boxing and per-entry node overhead of a ConcurrentHashMap for
+ *  the case where the keys are already primitive longs, like entity IDs.
+ *
+ *  <p>Reads are lock-free in the common case (optimistic reads validated
+ *  against a per-segment StampedLock) and writes lock only the segment
+ *  that contains the key.</p>
+ *
+ *  @author    Paul Speed
+ */
+public class ConcurrentLongMap<V> {
+
+    private static final int DEFAULT_SEGMENTS = 16;
+    private static final int MIN_CAPACITY = 16;
+
+    private final Segment<V>[] segments;
+    private final int segmentMask;
+
+    public ConcurrentLongMap() {
+        this(DEFAULT_SEGMENTS);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentLongMap( int segmentCount ) {
+        int count = 1;
+        int bits = 0;
+        while( count < segmentCount ) {
+            count <<= 1;
+            bits++;
+        }
+        this.segments = new Segment[count];
+        this.segmentMask = count - 1;
+        for( int i = 0; i < count; i++ ) {
+            segments[i] = new Segment<>(bits);
+        }
+    }
+
+    /**
+     *  Folds the high bits of the key into the low bits.  This is intentionally
+     *  close to an identity hash: entity IDs are mostly sequential and keeping
+     *  sequential IDs in neighboring slots is both collision free and much
+     *  friendlier to the CPU cache than a fully scrambled hash.
+     */
+    private static long spread( long key ) {
+        long h = key ^ (key >>> 32);
+        return h ^ (h >>> 20);
+    }
+
+    private Segment<V> segmentFor( long hash ) {
+        return segments[(int)hash & segmentMask];
+    }
+
+    public V get( long key ) {
+        long hash = spread(key);
+        return segmentFor(hash).get(key, hash);
+    }
+
+    public boolean containsKey( long key ) {
+        return get(key) != null;
+    }
+
+    /**
+     *  Associates the specified non-null value with the key and returns
+     *  the previous value or null if there was none.
+     */
+    public V put( long key, V value ) {
+        if( value == null ) {
+            throw new IllegalArgumentException("Value cannot be null");
+        }
+        long hash = spread(key);
+        return segmentFor(hash).put(key, hash, value);
+    }
+
+    /**
+     *  Removes the value for the specified key and returns it or null
+     *  if there was no value.
+     */
+    public V remove( long key ) {
+        long hash = spread(key);
+        return segmentFor(hash).remove(key, hash);
+    }
+
+    public int size() {
+        int result = 0;
+        for( Segment<V> s : segments ) {
+            result += s.size;
+        }
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        for( Segment<V> s : segments ) {
+            s.clear();
+        }
+    }
+
+    /**
+     *  Visits the entries of this map one segment at a time until the
+     *  visitor returns false.  Each segment is read-locked while it is
+     *  visited so the visitor should not try to modify this map.  Returns
+     *  false if the visitor stopped the iteration early.
+     */
+    public boolean visit( Visitor<? super V> visitor ) {
+        for( Segment<V> s : segments ) {
+            if( !s.visit(visitor) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[size=" + size() + "]";
+    }
+
+    /**
+     *  Called for each entry during a visit().  Return false to stop
+     *  visiting.
+     */
+    public interface Visitor<V> {
+        public boolean visit( long key, V value );
+    }
+
+    /**
+     *  The arrays for a segment are kept together so that an optimistic
+     *  reader always sees a matched pair.
+     */
+    private static final class Table {
+        final long[] keys;
+        final Object[] values;
+        final int mask;
+
+        Table( int capacity ) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.mask = capacity - 1;
+        }
+    }
+
+    private static final class Segment<V> {
+        private final StampedLock lock = new StampedLock();
+        private final int shift;
+        private volatile Table table = new Table(MIN_CAPACITY);
+        private volatile int size;
+
+        public Segment( int shift ) {
+            // The low bits of the hash already picked the segment so
+            // we skip them when picking a slot.
+            this.shift = shift;
+        }
+
+        private int slot( long hash, int mask ) {
+            return (int)(hash >>> shift) & mask;
+        }
+
+        @SuppressWarnings("unchecked")
+        private V find( Table t, long key, long hash ) {
+            int mask = t.mask;
+            int index = slot(hash, mask);
+            // Bounded so that a racing writer can never spin us forever
+            for( int i = 0; i <= mask; i++ ) {
+                Object v = t.values[index];
+                if( v == null ) {
+                    return null;
+                }
+                if( t.keys[index] == key ) {
+                    return (V)v;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        public V get( long key, long hash ) {
+            long stamp = lock.tryOptimisticRead();
+            if( stamp != 0 ) {
+                V result = find(table, key, hash);
+                if( lock.validate(stamp) ) {
+                    return result;
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return find(table, key, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public V put( long key, long hash, V value ) {
+            long stamp = lock.writeLock();
+            try {
+                Table t = table;
+                int index = slot(hash, t.mask);
+                while( true ) {
+                    Object v = t.values[index];
+                    if( v == null ) {
+                        break;
+                    }
+                    if( t.keys[index] == key ) {
+                        t.values[index] = value;
+                        return (V)v;
+                    }
+                    index = (index + 1) & t.mask;
+                }
+                // New entry... grow first if we'd go over a 50% load
+                if( (size + 1) * 2 > t.keys.length ) {
+                    t = resize(t.keys.length * 2);
+                    index = slot(hash, t.mask);
+                    while( t.values[index] != null ) {
+                        index = (index + 1) & t.mask;
+                    }
+                }
+                t.keys[index] = key;
+                t.values[index] = value;
+                size++;
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public V remove( long key, long hash ) {
+            long stamp = lock.writeLock();
+            try {
+                Table t = table;
+                int mask = t.mask;
+                int index = slot(hash, mask);
+                while( true ) {
+                    Object v = t.values[index];
+                    if( v == null ) {
+                        return null;
+                    }
+                    if( t.keys[index] == key ) {
+                        shiftDelete(t, index);
+                        size--;
+                        return (V)v;
+                    }
+                    index = (index + 1) & mask;
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         *  Backward shift deletion so that we never need tombstones.
+         */
+        private void shiftDelete( Table t, int hole ) {
+            int mask = t.mask;
+            int index = hole;
+            while( true ) {
+                index = (index + 1) & mask;
+                Object v = t.values[index];
+                if( v == null ) {
+                    break;
+                }
+                int home = slot(spread(t.keys[index]), mask);
+                // If the entry's home slot is not cyclically within (hole, index]
+                // then it can be moved back into the hole.
+                if( ((index - home) & mask) >= ((index - hole) & mask) ) {
+                    t.keys[hole] = t.keys[index];
+                    t.values[hole] = v;
+                    hole = index;
+                }
+            }
+            t.values[hole] = null;
+            t.keys[hole] = 0;
+        }
+
+        private Table resize( int capacity ) {
+            Table old = table;
+            Table t = new Table(capacity);
+            for( int i = 0; i < old.keys.length; i++ ) {
+                Object v = old.values[i];
+                if( v == null ) {
+                    continue;
+                }
+                long key = old.keys[i];
+                int index = slot(spread(key), t.mask);
+                while( t.values[index] != null ) {
+                    index = (index + 1) & t.mask;
+                }
+                t.keys[index] = key;
+                t.values[index] = v;
+            }
+            table = t;
+            return t;
+        }
+
+        public void clear() {
+            long stamp = lock.writeLock();
+            try {
+                table = new Table(MIN_CAPACITY);
+                size = 0;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public boolean visit( Visitor<? super V> visitor ) {
+            long stamp = lock.readLock();
+            try {
+                Table t = table;
+                for( int i = 0; i < t.keys.length; i++ ) {
+                    Object v = t.values[i];
+                    if( v == null ) {
+                        continue;
+                    }
+                    if( !visitor.visit(t.keys[i], (V)v) ) {
+                        return false;
+                    }
+                }
+                return true;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+}
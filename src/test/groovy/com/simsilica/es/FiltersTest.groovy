@@ -0,0 +1,70 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es;
+
+import com.simsilica.es.filter.*;
+
+/**
+ *  Tests for the Filters utility methods.
+ *
+ *  @author    Paul Speed
+ */
+public class FiltersTest {
+
+    static class DifferenceTest extends GroovyTestCase {
+        void testNoNewTerms() {
+            def original = Filters.in(Name.class, "name", "a", "b");
+            def updated = Filters.fieldEquals(Name.class, "name", "a");
+            assert null == Filters.difference(original, updated);
+        }
+
+        void testNewTermsOnly() {
+            def original = Filters.in(Name.class, "name", "a", "b");
+            def updated = Filters.in(Name.class, "name", "b", "c", "d");
+            def diff = Filters.difference(original, updated);
+            assert diff instanceof InFilter;
+            assert ["c", "d"] as Set == diff.values as Set;
+        }
+
+        void testNullValuesCannotDiff() {
+            def unset = new InFilter();
+            def updated = Filters.in(Name.class, "name", "a");
+            assert updated.is(Filters.difference(unset, updated));
+            assert unset.is(Filters.difference(updated, unset));
+        }
+    }
+}
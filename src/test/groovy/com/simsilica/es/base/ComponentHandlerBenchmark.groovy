@@ -0,0 +1,153 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.base;
+
+import groovy.transform.CompileStatic;
+
+import com.simsilica.es.*;
+
+/**
+ *  Compares the heap use and get/set throughput of MapComponentHandler
+ *  and LongMapComponentHandler for a large number of entities that share
+ *  one component instance.  The EntityIds are allocated up front and are
+ *  not counted in the heap numbers.  This is not a test and is run by hand
+ *  with the test runtime classpath and plenty of heap, for example:
+ *  <pre>
+ *  java -Xmx2g com.simsilica.es.base.ComponentHandlerBenchmark [count]
+ *  </pre>
+ *
+ *  @author    Paul Speed
+ */
+@CompileStatic
+public class ComponentHandlerBenchmark {
+
+    static final int ROUNDS = 5;
+
+    public static void main( String... args ) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        EntityId[] ids = new EntityId[count];
+        for( int i = 0; i < count; i++ ) {
+            ids[i] = new EntityId(i);
+        }
+        int[] order = new int[count];
+        for( int i = 0; i < count; i++ ) {
+            order[i] = i;
+        }
+        Random random = new Random(1);
+        for( int i = count - 1; i > 0; i-- ) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+
+        System.out.println(String.format("%-28s %12s %14s %14s %14s",
+                                         "handler", "heap/entity", "get (random)",
+                                         "set (random)", "get (seq)"));
+        for( int pass = 0; pass < 2; pass++ ) {
+            boolean report = pass == 1;
+            run(new MapComponentHandler<Name>(Name.class), ids, order, report);
+            run(new LongMapComponentHandler<Name>(Name.class), ids, order, report);
+        }
+    }
+
+    static void run( ComponentHandler<Name> handler, EntityId[] ids, int[] order, boolean report ) {
+        Name name = new Name("shared");
+        int count = ids.length;
+
+        long before = usedHeap();
+        for( int i = 0; i < count; i++ ) {
+            handler.setComponent(ids[i], name);
+        }
+        long after = usedHeap();
+
+        double getRandom = 0;
+        double setRandom = 0;
+        double getSequential = 0;
+        for( int round = 0; round < ROUNDS; round++ ) {
+            long start = System.nanoTime();
+            int found = 0;
+            for( int i = 0; i < count; i++ ) {
+                if( handler.getComponent(ids[order[i]]) != null ) {
+                    found++;
+                }
+            }
+            getRandom = Math.max(getRandom, rate(count, start));
+            if( found != count ) {
+                throw new RuntimeException("Found " + found + " of " + count);
+            }
+
+            start = System.nanoTime();
+            for( int i = 0; i < count; i++ ) {
+                handler.setComponent(ids[order[i]], name);
+            }
+            setRandom = Math.max(setRandom, rate(count, start));
+
+            start = System.nanoTime();
+            for( int i = 0; i < count; i++ ) {
+                handler.getComponent(ids[i]);
+            }
+            getSequential = Math.max(getSequential, rate(count, start));
+        }
+
+        if( report ) {
+            System.out.println(String.format("%-28s %10.1f B %10.1f M/s %10.1f M/s %10.1f M/s",
+                                             handler.getClass().getSimpleName(),
+                                             (after - before) / (double)count,
+                                             getRandom, setRandom, getSequential));
+        }
+    }
+
+    static double rate( int count, long start ) {
+        long nanos = System.nanoTime() - start;
+        return count / (nanos / 1000.0);
+    }
+
+    static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for( int i = 0; i < 3; i++ ) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
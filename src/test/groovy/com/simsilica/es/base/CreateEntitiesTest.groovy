@@ -0,0 +1,83 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.base;
+
+import com.simsilica.es.*;
+
+/**
+ *  Tests for reserving blocks of entity IDs and bulk entity creation.
+ *
+ *  @author    Paul Speed
+ */
+public class CreateEntitiesTest {
+
+    static class NextEntityIdsTest extends GroovyTestCase {
+        void testBlockIsSequential() {
+            def gen = new DefaultEntityIdGenerator(10);
+            assert [10L, 11L, 12L] == gen.nextEntityIds(3) as List;
+            assert 13L == gen.nextEntityId();
+        }
+
+        void testNegativeCountLeavesNextIdUnchanged() {
+            def gen = new DefaultEntityIdGenerator(10);
+            shouldFail(IllegalArgumentException) {
+                gen.nextEntityIds(-5);
+            }
+            assert 10L == gen.nextEntityId();
+        }
+    }
+
+    static class CreateTest extends GroovyTestCase {
+        void testCreateEntities() {
+            def ed = new DefaultEntityData();
+            def ids = ed.createEntities(3, new Name("test"));
+            assert 3 == ids.length;
+            ids.each { id ->
+                assert "test" == ed.getComponent(id, Name.class).name;
+            }
+        }
+
+        void testNegativeCountLeavesNextIdUnchanged() {
+            def ed = new DefaultEntityData();
+            def first = ed.createEntity();
+            shouldFail(IllegalArgumentException) {
+                ed.createEntities(-5, new Name("test"));
+            }
+            assert first.id + 1 == ed.createEntity().id;
+        }
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package com.simsilica.es.base;
+
+import com.simsilica.es.*;
+
+/**
+ *  Randomized tests that compare DenseEntitySet, and the EntityHashSet
+ *  that it uses for storage, against the map based implementations.
+ *
+ *  @author    Paul Speed
+ */
+public class DenseEntitySetTest {
+
+    static class TestEntity extends DefaultEntity {
+        TestEntity( long id ) {
+            super(null, new EntityId(id), new EntityComponent[0], new Class[0]);
+        }
+    }
+
+    static void assertSameSet( EntityHashSet<Entity> set, Map<EntityId, Entity> expected ) {
+        assert expected.size() == set.size();
+        assert expected.keySet() == set*.id as Set;
+        for( int i = 0; i < set.size(); i++ ) {
+            def e = set.get(i);
+            assert expected[e.id].is(e);
+            assert i == set.indexOf(e.id);
+            assert e.is(set.get(e.id));
+        }
+    }
+
+    static class EntityHashSetTest extends GroovyTestCase {
+        void testRandomAddRemove() {
+            def random = new Random(1);
+            def set = new EntityHashSet<Entity>();
+            def expected = [:];
+            for( int step = 0; step < 20000; step++ ) {
+                // A small ID range keeps the set dense enough that removes
+                // have to shift the entries that collided after them
+                long id = random.nextInt(300);
+                def key = new EntityId(id);
+                if( random.nextInt(3) == 0 ) {
+                    assert expected.remove(key).is(set.remove(key));
+                } else {
+                    def e = new TestEntity(id);
+                    assert expected.put(key, e).is(set.put(e));
+                }
+                assert !set.containsId(new EntityId(1000 + id));
+                if( step % 500 == 0 ) {
+                    assertSameSet(set, expected);
+                }
+            }
+            assertSameSet(set, expected);
+        }
+
+        void testIteratorRemove() {
+            def random = new Random(2);
+            def set = new EntityHashSet<Entity>();
+            def expected = [:];
+            (0..<500).each {
+                def e = new TestEntity(random.nextInt(1000));
+                set.put(e);
+                expected[e.id] = e;
+            }
+            for( int round = 0; round < 5; round++ ) {
+                def seen = [];
+                for( def it = set.iterator(); it.hasNext(); ) {
+                    def e = it.next();
+                    seen.add(e.id);
+                    if( random.nextInt(3) == 0 ) {
+                        it.remove();
+                        expected.remove(e.id);
+                    }
+                }
+                // Every entity is visited exactly once even though removes
+                // swap the last entity into the removed slot
+                assert seen.size() == (seen as Set).size();
+                assert (seen as Set).containsAll(expected.keySet());
+                assertSameSet(set, expected);
+            }
+        }
+    }
+
+    static class CompareTest extends GroovyTestCase {
+        DefaultEntityData ed;
+        Random random = new Random(3);
+        List<EntityId> ids = [];
+        EntityId creator;
+        DenseEntitySet dense;
+        DefaultEntitySet plain;
+
+        void setUp() {
+            ed = new DefaultEntityData();
+            creator = ed.createEntity();
+            dense = ed.getDenseEntities(Name.class, CreatedBy.class);
+            plain = (DefaultEntitySet)ed.getEntities(Name.class, CreatedBy.class);
+        }
+
+        void tearDown() {
+            dense.release();
+            plain.release();
+            ed.close();
+        }
+
+        void randomChanges( int count ) {
+            for( int i = 0; i < count; i++ ) {
+                int op = random.nextInt(10);
+                if( ids.isEmpty() || op == 0 ) {
+                    def id = ed.createEntity();
+                    ids.add(id);
+                    ed.setComponents(id, new Name("new"), new CreatedBy(creator));
+                    continue;
+                }
+                def id = ids[random.nextInt(ids.size())];
+                switch( op ) {
+                    case 1:
+                        ed.removeEntity(id);
+                        ids.remove(id);
+                        break;
+                    case 2:
+                        ed.removeComponent(id, Name.class);
+                        break;
+                    case 3:
+                        ed.removeComponent(id, CreatedBy.class);
+                        break;
+                    case 4:
+                    case 5:
+                        ed.setComponent(id, new CreatedBy(creator));
+                        break;
+                    default:
+                        ed.setComponent(id, new Name("n" + i));
+                        break;
+                }
+            }
+        }
+
+        static Set<EntityId> idsOf( Set<Entity> entities ) {
+            return entities.collect { it.id } as Set;
+        }
+
+        void assertSameEntities() {
+            def expected = new HashSet<EntityId>(plain.entityIds);
+            assert expected.size() == dense.size();
+            assert expected == dense.entityIds;
+            assert dense.entityIds == expected;
+            assert expected == dense.collect { it.id } as Set;
+
+            def names = dense.column(Name.class);
+            def creators = dense.column(CreatedBy.class);
+            assert dense.size() == names.size();
+            for( int i = 0; i < dense.size(); i++ ) {
+                def e = dense.get(i);
+                def other = plain.getEntity(e.id);
+                assert i == dense.indexOf(e.id);
+                assert e.is(dense.getEntity(e.id));
+                assert dense.containsId(e.id);
+                assert other.get(Name.class).is(e.get(Name.class));
+                assert other.get(CreatedBy.class).is(e.get(CreatedBy.class));
+                assert e.id == names.getEntityId(i);
+                assert e.get(Name.class).is(names.get(i));
+                assert e.get(CreatedBy.class).is(creators.get(i));
+            }
+            for( EntityId id : ids ) {
+                assert plain.containsId(id) == dense.containsId(id);
+                assert plain.containsId(id) == dense.entityIds.contains(id);
+            }
+        }
+
+        boolean applyBoth() {
+            boolean result = dense.applyChanges();
+            assert result == plain.applyChanges();
+            assert idsOf(plain.addedEntities) == idsOf(dense.addedEntities);
+            assert idsOf(plain.changedEntities) == idsOf(dense.changedEntities);
+            assert idsOf(plain.removedEntities) == idsOf(dense.removedEntities);
+            return result;
+        }
+
+        void testRandomChanges() {
+            for( int round = 0; round < 200; round++ ) {
+                randomChanges(random.nextInt(50) + 1);
+                applyBoth();
+                assertSameEntities();
+            }
+            assert !dense.isEmpty();
+
+            // The dense set keeps its own storage so the base class's
+            // map should never have been created
+            def field = DefaultEntitySet.class.getDeclaredField("entities");
+            field.accessible = true;
+            assert null == field.get(dense);
+            assert null != field.get(plain);
+        }
+
+        void testIteratorRemove() {
+            randomChanges(500);
+            applyBoth();
+            for( int round = 0; round < 10; round++ ) {
+                def before = new HashSet<EntityId>(dense.entityIds);
+                def removed = [] as Set;
+                def seen = [];
+                for( def it = dense.iterator(); it.hasNext(); ) {
+                    def e = it.next();
+                    seen.add(e.id);
+                    if( random.nextInt(4) == 0 ) {
+                        it.remove();
+                        removed.add(e.id);
+                    }
+                }
+                // Every entity is visited exactly once including the ones
+                // swapped into removed slots
+                assert seen.size() == before.size();
+                assert before == seen as Set;
+
+                for( def it = plain.iterator(); it.hasNext(); ) {
+                    if( removed.contains(it.next().id) ) {
+                        it.remove();
+                    }
+                }
+                assert (before - removed) == dense.entityIds as Set;
+                assertSameEntities();
+
+                // Removed entities come back once they change again
+                randomChanges(50);
+                removed.each { id ->
+                    if( ids.contains(id) ) {
+                        ed.setComponent(id, new Name("back"));
+                    }
+                }
+                applyBoth();
+                assertSameEntities();
+            }
+        }
+
+        void testIdViewRemove() {
+            randomChanges(300);
+            applyBoth();
+            def view = dense.entityIds;
+            def before = new HashSet<EntityId>(view);
+            def removed = [] as Set;
+            def seen = [];
+            for( def it = view.iterator(); it.hasNext(); ) {
+                def id = it.next();
+                seen.add(id);
+                if( random.nextBoolean() ) {
+                    it.remove();
+                    removed.add(id);
+                }
+            }
+            assert before == seen as Set;
+            assert seen.size() == before.size();
+
+            // The view is live
+            assert (before - removed) == view as Set;
+            assert before.size() - removed.size() == view.size();
+            removed.each { assert !view.contains(it) };
+            assert !view.contains("not an id");
+
+            plain.entityIds.removeAll(removed);
+            assertSameEntities();
+        }
+    }
+}
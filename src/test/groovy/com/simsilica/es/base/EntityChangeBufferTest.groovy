@@ -0,0 +1,483 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package com.simsilica.es.base;
+
+import java.util.concurrent.TimeUnit;
+
+import com.simsilica.es.*;
+
+/**
+ *  Tests for the coalescing change buffer that entity sets use to
+ *  hold their pending changes.
+ *
+ *  @author    Paul Speed
+ */
+public class EntityChangeBufferTest {
+
+    static Class[] TYPES = [Name.class, CreatedBy.class] as Class[];
+
+    static EntityChangeBuffer newBuffer() {
+        return new EntityChangeBuffer(TYPES);
+    }
+
+    static List<EntityChange> drainAll( EntityChangeBuffer buffer ) {
+        def result = [];
+        buffer.drain({ result.add(it) });
+        return result;
+    }
+
+    static class CoalesceTest extends GroovyTestCase {
+        void testLatestValueWins() {
+            def buffer = newBuffer();
+            def id = new EntityId(1);
+            def names = (0..<4).collect { new Name("name" + it) };
+            names.each { buffer.add(new EntityChange(id, it)) };
+            def creator = new CreatedBy(new EntityId(99));
+            buffer.add(new EntityChange(id, creator));
+
+            assert 2 == buffer.size();
+            assert names[3].is(buffer.get(id, Name.class).component);
+            assert creator.is(buffer.get(id, CreatedBy.class).component);
+
+            def drained = drainAll(buffer);
+            assert 2 == drained.size();
+            assert [names[3], creator] as Set == drained*.component as Set;
+            assert buffer.isEmpty();
+            assert [] == drainAll(buffer);
+        }
+
+        void testUntrackedTypeIsRejected() {
+            def buffer = newBuffer();
+            assert !buffer.add(new EntityChange(new EntityId(1), TestScore.class, null));
+            assert buffer.isEmpty();
+        }
+
+        void testRemoveThenSet() {
+            def buffer = newBuffer();
+            def id = new EntityId(1);
+            def name = new Name("back");
+            buffer.add(new EntityChange(id, Name.class));
+            assert null == buffer.get(id, Name.class).component;
+            buffer.add(new EntityChange(id, name));
+
+            def drained = drainAll(buffer);
+            assert 1 == drained.size();
+            assert name.is(drained[0].component);
+        }
+
+        void testSetThenRemove() {
+            def buffer = newBuffer();
+            def id = new EntityId(1);
+            buffer.add(new EntityChange(id, new Name("gone")));
+            buffer.add(new EntityChange(id, Name.class));
+
+            def drained = drainAll(buffer);
+            assert 1 == drained.size();
+            assert Name.class == drained[0].componentType;
+            assert null == drained[0].component;
+        }
+
+        void testGrowth() {
+            def buffer = newBuffer();
+            int count = 1000;
+            // Twice over so that the second pass has to find every entry
+            // in the grown table
+            for( int pass = 0; pass < 2; pass++ ) {
+                for( int i = 0; i < count; i++ ) {
+                    def id = new EntityId(i * 64);
+                    buffer.add(new EntityChange(id, new Name("p" + pass + ":" + i)));
+                    buffer.add(new EntityChange(id, new CreatedBy(new EntityId(pass))));
+                }
+            }
+            assert count * 2 == buffer.size();
+            assert count * 2 == buffer.highWaterMark;
+            for( int i = 0; i < count; i++ ) {
+                assert "p1:" + i == buffer.get(new EntityId(i * 64), Name.class).component.name;
+            }
+
+            def drained = drainAll(buffer);
+            assert count * 2 == drained.size();
+            assert count * 2 == (drained.collect { [it.entityId, it.componentType] } as Set).size();
+            assert drained.every { it.component instanceof CreatedBy || it.component.name.startsWith("p1:") };
+        }
+
+        void testClearAndReuse() {
+            def buffer = newBuffer();
+            for( int i = 0; i < 100; i++ ) {
+                buffer.add(new EntityChange(new EntityId(i), new Name("old" + i)));
+            }
+            buffer.clear();
+            assert buffer.isEmpty();
+            assert null == buffer.get(new EntityId(5), Name.class);
+            assert [] == drainAll(buffer);
+
+            // The cleared table must not still find the old entries
+            for( int i = 0; i < 100; i += 2 ) {
+                buffer.add(new EntityChange(new EntityId(i), new Name("new" + i)));
+            }
+            assert 50 == buffer.size();
+            assert null == buffer.get(new EntityId(5), Name.class);
+            def drained = drainAll(buffer);
+            assert 50 == drained.size();
+            assert drained.every { it.component.name.startsWith("new") };
+        }
+
+        void testReuseAfterDrains() {
+            // Drains swap the tables around so make sure each of them
+            // still works once it has been drained and reused a few times
+            def buffer = newBuffer();
+            def random = new Random(1);
+            for( int round = 0; round < 20; round++ ) {
+                def expected = [:];
+                int count = random.nextInt(200) + 1;
+                for( int i = 0; i < count; i++ ) {
+                    def id = new EntityId(random.nextInt(100));
+                    def change = random.nextInt(4) == 0
+                                    ? new EntityChange(id, Name.class)
+                                    : new EntityChange(id, new Name("r" + round + ":" + i));
+                    buffer.add(change);
+                    expected[id] = change.component;
+                }
+                assert expected.size() == buffer.size();
+                def drained = drainAll(buffer);
+                assert expected == drained.collectEntries { [it.entityId, it.component] };
+            }
+        }
+    }
+
+    static class OverflowTest extends GroovyTestCase {
+        void testOverflowDropsEverything() {
+            def buffer = newBuffer();
+            buffer.maxSize = 3;
+            def id = new EntityId(1);
+            // Replacing a pending change doesn't add to the size
+            for( int i = 0; i < 10; i++ ) {
+                buffer.add(new EntityChange(id, new Name("n" + i)));
+            }
+            buffer.add(new EntityChange(id, new CreatedBy(id)));
+            buffer.add(new EntityChange(new EntityId(2), new Name("two")));
+            assert 3 == buffer.size();
+            assert !buffer.checkOverflow();
+
+            buffer.add(new EntityChange(new EntityId(3), new Name("three")));
+            assert buffer.isEmpty();
+            assert null == buffer.get(id, Name.class);
+            assert 1 == buffer.overflowCount;
+            assert buffer.checkOverflow();
+            assert !buffer.checkOverflow();
+
+            // Changes after the overflow are kept as normal
+            def name = new Name("after");
+            buffer.add(new EntityChange(id, name));
+            def drained = drainAll(buffer);
+            assert 1 == drained.size();
+            assert name.is(drained[0].component);
+            assert 1 == buffer.overflowCount;
+            assert 4 == buffer.highWaterMark;
+        }
+
+        void testUnbounded() {
+            def buffer = newBuffer();
+            for( int i = 0; i < 10000; i++ ) {
+                buffer.add(new EntityChange(new EntityId(i), new Name("n" + i)));
+            }
+            assert 10000 == buffer.size();
+            assert !buffer.checkOverflow();
+        }
+    }
+
+    static class ResyncTest extends GroovyTestCase {
+        DefaultEntityData ed;
+        EntityId creator;
+        List<EntityId> ids;
+        DefaultEntitySet set;
+
+        void setUp() {
+            ed = new DefaultEntityData();
+            creator = ed.createEntity();
+            ids = (0..<10).collect {
+                def id = ed.createEntity();
+                ed.setComponents(id, new Name("e" + it), new CreatedBy(creator));
+                return id;
+            };
+            set = (DefaultEntitySet)ed.getEntities(Name.class, CreatedBy.class);
+            set.applyChanges();
+            set.maxPendingChanges = 3;
+        }
+
+        void tearDown() {
+            set.release();
+            ed.close();
+        }
+
+        void assertMatchesData() {
+            def expected = ed.findEntities(null, Name.class, CreatedBy.class);
+            assert expected == set.entityIds;
+            for( Entity e : set ) {
+                assert ed.getComponent(e.id, Name.class).is(e.get(Name.class));
+                assert ed.getComponent(e.id, CreatedBy.class).is(e.get(CreatedBy.class));
+            }
+        }
+
+        void testOverflowResyncs() {
+            for( int i = 0; i < 5; i++ ) {
+                ed.setComponent(ids[i], new Name("changed" + i));
+            }
+            ed.removeComponent(ids[9], CreatedBy.class);
+            def added = ed.createEntity();
+            ed.setComponents(added, new Name("added"), new CreatedBy(creator));
+            assert 2 == set.overflowCount;
+
+            assert set.applyChanges();
+            assert [added] as Set == set.addedEntities*.id as Set;
+            assert [ids[9]] as Set == set.removedEntities*.id as Set;
+            assert ids[0..<5] as Set == set.changedEntities*.id as Set;
+            assertMatchesData();
+
+            assert !set.hasPendingChanges();
+            assert !set.applyChanges();
+        }
+
+        void testChangesAfterOverflowAreApplied() {
+            for( int i = 0; i < 4; i++ ) {
+                ed.setComponent(ids[i], new Name("changed" + i));
+            }
+            assert 1 == set.overflowCount;
+            assert 0 == set.pendingChangeCount;
+
+            // Still pending after the overflow.  The new entity is also
+            // found by the resync but to the caller it's only an add.
+            ed.setComponent(ids[5], new Name("late"));
+            def added = ed.createEntity();
+            ed.setComponents(added, new Name("added"), new CreatedBy(creator));
+            assert 3 == set.pendingChangeCount;
+            assert 1 == set.overflowCount;
+
+            assert set.applyChanges();
+            assert [added] as Set == set.addedEntities*.id as Set;
+            assert set.removedEntities.isEmpty();
+            assert (ids[0..<4] + ids[5]) as Set == set.changedEntities*.id as Set;
+            assertMatchesData();
+        }
+
+        void testFilteredResync() {
+            set.resetFilter(Name.filter("e7"));
+            for( int i = 0; i < 4; i++ ) {
+                ed.setComponent(ids[i], new Name("changed" + i));
+            }
+            assert 1 == set.overflowCount;
+
+            set.applyChanges();
+            assert [ids[7]] as Set == set.entityIds;
+        }
+    }
+
+    static class LimitedDrainTest extends GroovyTestCase {
+        List<EntityId> ids = (0..<5).collect { new EntityId(it) };
+
+        void addBoth( EntityChangeBuffer buffer, String value ) {
+            // Each entity's changes are added in separate passes so that
+            // they aren't next to each other in the buffer
+            ids.each { buffer.add(new EntityChange(it, new Name(value + it.id))) };
+            ids.each { buffer.add(new EntityChange(it, new CreatedBy(it))) };
+        }
+
+        List<EntityChange> drain( EntityChangeBuffer buffer, int max ) {
+            def result = [];
+            assert buffer.drain({ result.add(it) }, max) == result.size();
+            return result;
+        }
+
+        void testEntityChangesStayTogether() {
+            def buffer = newBuffer();
+            addBoth(buffer, "a");
+
+            def drained = drain(buffer, 3);
+            assert 4 == drained.size();
+            assert [ids[0], ids[1]] as Set == drained*.entityId as Set;
+            assert 6 == buffer.size();
+            assert !buffer.isEmpty();
+
+            drained = drain(buffer, 1);
+            assert 2 == drained.size();
+            assert [ids[2]] as Set == drained*.entityId as Set;
+            assert [Name.class, CreatedBy.class] as Set == drained*.componentType as Set;
+
+            drained = drain(buffer, 100);
+            assert 4 == drained.size();
+            assert [ids[3], ids[4]] as Set == drained*.entityId as Set;
+            assert buffer.isEmpty();
+            assert [] == drain(buffer, 1);
+        }
+
+        void testNewChangesCoalesceIntoBacklog() {
+            def buffer = newBuffer();
+            addBoth(buffer, "a");
+            drain(buffer, 2);
+            assert 8 == buffer.size();
+
+            // Replaces the pending change
+            def name = new Name("b3");
+            buffer.add(new EntityChange(ids[3], name));
+            assert 8 == buffer.size();
+            assert name.is(buffer.get(ids[3], Name.class).component);
+
+            // Already drained so it goes after everything else
+            def again = new Name("b0");
+            buffer.add(new EntityChange(ids[0], again));
+            assert 9 == buffer.size();
+            assert again.is(buffer.get(ids[0], Name.class).component);
+
+            def order = [];
+            while( !buffer.isEmpty() ) {
+                def drained = drain(buffer, 1);
+                assert (drained*.entityId as Set).size() == 1;
+                order.add(drained[0].entityId);
+                if( drained[0].entityId == ids[3] ) {
+                    assert name.is(drained.find { it.componentType == Name.class }.component);
+                }
+            }
+            assert [ids[1], ids[2], ids[3], ids[4], ids[0]] == order;
+        }
+
+        void testBacklogReusesRemovedEntries() {
+            def buffer = newBuffer();
+            def expected = [];
+            for( int i = 0; i < 16; i++ ) {
+                def id = new EntityId(i);
+                buffer.add(new EntityChange(id, new Name("old" + i)));
+                expected.add(id);
+            }
+            drain(buffer, 12);
+            expected = expected.drop(12);
+
+            // Enough new entities that the backlog has to rebuild around
+            // the entries that were drained from it and then grow
+            for( int i = 0; i < 100; i++ ) {
+                def id = new EntityId(1000 + i);
+                buffer.add(new EntityChange(id, new Name("new" + i)));
+                expected.add(id);
+            }
+            assert expected.size() == buffer.size();
+
+            def order = [];
+            while( !buffer.isEmpty() ) {
+                order.addAll(drain(buffer, 7)*.entityId);
+            }
+            assert expected == order;
+        }
+    }
+
+    static class LimitedApplyTest extends GroovyTestCase {
+        DefaultEntityData ed;
+        List<EntityId> ids;
+        DefaultEntitySet set;
+
+        void setUp() {
+            ed = new DefaultEntityData();
+            ids = (0..<6).collect {
+                def id = ed.createEntity();
+                ed.setComponents(id, new Name("e" + it), new CreatedBy(id));
+                return id;
+            };
+            set = (DefaultEntitySet)ed.getEntities(Name.class, CreatedBy.class);
+            set.applyChanges();
+        }
+
+        void tearDown() {
+            set.release();
+            ed.close();
+        }
+
+        void changeAll( String value ) {
+            ids.each { ed.setComponent(it, new Name(value + it.id)) };
+            ids.each { ed.setComponent(it, new CreatedBy(ids[0])) };
+        }
+
+        void assertUpdated( EntityId id, String value ) {
+            def e = set.getEntity(id);
+            assert value + id.id == e.get(Name.class).name;
+            assert ids[0] == e.get(CreatedBy.class).creatorId;
+        }
+
+        void testApplyCount() {
+            changeAll("a");
+
+            assert set.applyChanges(3);
+            assert [ids[0], ids[1]] as Set == set.changedEntities*.id as Set;
+            assertUpdated(ids[0], "a");
+            assertUpdated(ids[1], "a");
+            assert "e2" == set.getEntity(ids[2]).get(Name.class).name;
+            assert set.hasPendingChanges();
+            assert 8 == set.pendingChangeCount;
+
+            assert set.applyChanges(3);
+            assert [ids[2], ids[3]] as Set == set.changedEntities*.id as Set;
+            assert set.applyChanges(3);
+            assert [ids[4], ids[5]] as Set == set.changedEntities*.id as Set;
+            ids.each { assertUpdated(it, "a") };
+
+            assert !set.hasPendingChanges();
+            assert !set.applyChanges(3);
+
+            shouldFail(IllegalArgumentException) {
+                set.applyChanges(0);
+            }
+        }
+
+        void testApplyTime() {
+            // Without an estimate of the time per change the first call
+            // is only limited to a fixed count
+            changeAll("a");
+            assert set.applyChanges(1, TimeUnit.NANOSECONDS);
+            assert ids as Set == set.changedEntities*.id as Set;
+            assert !set.hasPendingChanges();
+
+            // Now nothing fits in the budget so it does a single entity
+            changeAll("b");
+            assert set.applyChanges(1, TimeUnit.NANOSECONDS);
+            assert [ids[0]] as Set == set.changedEntities*.id as Set;
+            assertUpdated(ids[0], "b");
+            assert 10 == set.pendingChangeCount;
+
+            assert set.applyChanges(1, TimeUnit.SECONDS);
+            ids.each { assertUpdated(it, "b") };
+            assert !set.hasPendingChanges();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.base;
+
+import java.lang.management.ManagementFactory;
+
+import groovy.transform.CompileStatic;
+
+import org.junit.Test;
+import static org.junit.Assume.assumeTrue;
+
+import com.simsilica.es.*;
+
+/**
+ *  Tests that applying value-only changes to an entity set does
+ *  not allocate once the set's internal buffers have grown to their
+ *  working size.
+ *
+ *  @author    Paul Speed
+ */
+public class EntitySetAllocationTest {
+
+    // A plain JUnit 4 test instead of a GroovyTestCase so that a JVM
+    // without allocation counting shows up as a skipped test.
+    @CompileStatic
+    static class SteadyStateTest {
+        @Test
+        void testSteadyStateApplyChanges() {
+            def threads = ManagementFactory.getThreadMXBean();
+            assumeTrue("Thread allocation counting not available",
+                       threads instanceof com.sun.management.ThreadMXBean);
+            com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean)threads;
+            assumeTrue("Thread allocation counting not supported",
+                       mx.isThreadAllocatedMemorySupported());
+            mx.setThreadAllocatedMemoryEnabled(true);
+
+            DefaultEntityData ed = new DefaultEntityData();
+            int count = 500;
+            EntityId creator = ed.createEntity();
+            EntityId[] ids = new EntityId[count];
+            for( int i = 0; i < count; i++ ) {
+                ids[i] = ed.createEntity();
+                ed.setComponents(ids[i], new Name("entity" + i), new CreatedBy(creator));
+            }
+            EntitySet set = ed.getEntities(Name.class, CreatedBy.class);
+            set.applyChanges();
+
+            // Pre-create the component values so that only the
+            // entity set's own work is being measured
+            Name[][] names = new Name[2][count];
+            for( int i = 0; i < count; i++ ) {
+                names[0][i] = new Name("a" + i);
+                names[1][i] = new Name("b" + i);
+            }
+
+            long tid = Thread.currentThread().getId();
+            long allocated = 0;
+            int allocatingFrames = 0;
+            for( int frame = 0; frame < 200; frame++ ) {
+                Name[] values = names[frame % 2];
+                for( int i = 0; i < count; i++ ) {
+                    ed.setComponent(ids[i], values[i]);
+                }
+                long start = mx.getThreadAllocatedBytes(tid);
+                set.applyChanges();
+                long end = mx.getThreadAllocatedBytes(tid);
+
+                assert set.getChangedEntities().size() == count;
+                assert set.getAddedEntities().isEmpty();
+                assert set.getRemovedEntities().isEmpty();
+
+                // Give the buffers time to grow to their working size
+                if( frame >= 100 && end != start ) {
+                    allocated += end - start;
+                    allocatingFrames++;
+                }
+            }
+            set.release();
+
+            // The JVM can occasionally allocate on our behalf, for example
+            // when deoptimizing compiled code, so allow a few stray frames.
+            // Before the change buffer and change sets were reusable every
+            // frame allocated tens of kilobytes.
+            assert allocatingFrames <= 5 : "applyChanges() allocated " + allocated + " bytes in " + allocatingFrames + " frames";
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.base;
+
+import com.simsilica.es.*;
+import com.simsilica.es.filter.RangeFilter;
+
+/**
+ *  Tests for RangeFilter and InFilter and for resolving them through
+ *  the sorted FieldIndexes.
+ *
+ *  @author    Paul Speed
+ */
+public class FieldIndexesTest {
+
+    /**
+     *  Ten entities with points 0, 10, ... 90 and tags t1 and t2 except
+     *  for every third entity, which has a null tag.
+     */
+    static abstract class ScoreTestCase extends GroovyTestCase {
+        Map<EntityId, TestScore> scores = [:];
+        FieldIndexes<TestScore> indexes;
+        MapComponentHandler<TestScore> handler;
+
+        void setUp() {
+            indexes = FieldIndexes.create(TestScore.class);
+            handler = new MapComponentHandler<>(TestScore.class);
+            for( int i = 0; i < 10; i++ ) {
+                def id = new EntityId(i);
+                def score = new TestScore(i * 10, i % 3 == 0 ? null : "t" + (i % 3));
+                scores.put(id, score);
+                indexes.update(id, null, score);
+                handler.setComponent(id, score);
+            }
+        }
+
+        Set<EntityId> ids( Collection<Integer> values ) {
+            return values.collect { new EntityId(it) } as Set;
+        }
+
+        Set<EntityId> matching( ComponentFilter filter ) {
+            return scores.findAll { id, score -> filter.evaluate(score) }.keySet();
+        }
+
+        /**
+         *  Checks that the filter, the index, and the handler all agree
+         *  on the expected entities.
+         */
+        void check( ComponentFilter filter, Collection<Integer> expected ) {
+            assert ids(expected) == matching(filter);
+            assert ids(expected) == indexes.lookup(filter);
+            assert expected.size() == indexes.estimate(filter);
+            assert ids(expected) == handler.getEntities(filter);
+        }
+    }
+
+    static class RangeTest extends ScoreTestCase {
+        void testInclusiveBounds() {
+            check(Filters.between(TestScore.class, "points", 20L, 40L), [2, 3, 4]);
+        }
+
+        void testExclusiveBounds() {
+            check(RangeFilter.create(TestScore.class, "points", 20L, false, 40L, false), [3]);
+            check(RangeFilter.create(TestScore.class, "points", 20L, true, 40L, false), [2, 3]);
+            check(RangeFilter.create(TestScore.class, "points", 20L, false, 40L, true), [3, 4]);
+            check(RangeFilter.create(TestScore.class, "points", 25L, false, 35L, false), [3]);
+        }
+
+        void testOpenEnded() {
+            check(Filters.lessThan(TestScore.class, "points", 30L), [0, 1, 2]);
+            check(Filters.greaterThan(TestScore.class, "points", 70L), [8, 9]);
+            check(RangeFilter.create(TestScore.class, "points", null, false, 20L, true), [0, 1, 2]);
+            check(RangeFilter.create(TestScore.class, "points", null, false, null, false), 0..9);
+        }
+
+        void testEmptyRanges() {
+            check(Filters.between(TestScore.class, "points", 40L, 20L), []);
+            check(RangeFilter.create(TestScore.class, "points", 20L, true, 20L, false), []);
+            check(Filters.between(TestScore.class, "points", 20L, 20L), [2]);
+        }
+
+        void testNullValuesNeverMatch() {
+            check(RangeFilter.create(TestScore.class, "tag", null, false, null, false), [1, 2, 4, 5, 7, 8]);
+            check(Filters.between(TestScore.class, "tag", "t2", "t9"), [2, 5, 8]);
+        }
+
+        void testMismatchedBoundTypeScans() {
+            // Integer bounds on a long field still compare numerically but
+            // the sorted index can't compare them so the filter has to be
+            // resolved by evaluating every component
+            def filter = Filters.between(TestScore.class, "points", 20, 40);
+            assert ids([2, 3, 4]) == matching(filter);
+            assert null == indexes.lookup(filter);
+            assert -1 == indexes.estimate(filter);
+            assert ids([2, 3, 4]) == handler.getEntities(filter);
+
+            filter = Filters.lessThan(TestScore.class, "points", 25.5);
+            assert ids([0, 1, 2]) == matching(filter);
+            assert null == indexes.lookup(filter);
+            assert ids([0, 1, 2]) == handler.getEntities(filter);
+        }
+    }
+
+    static class InTest extends ScoreTestCase {
+        void testValues() {
+            check(Filters.in(TestScore.class, "points", 0L, 50L, 55L), [0, 5]);
+            check(Filters.in(TestScore.class, "tag", "t1"), [1, 4, 7]);
+        }
+
+        void testNullMembers() {
+            check(Filters.in(TestScore.class, "tag", "t1", null), [0, 1, 3, 4, 6, 7, 9]);
+            check(Filters.in(TestScore.class, "tag", [null] as Object[]), [0, 3, 6, 9]);
+        }
+
+        void testMismatchedValueType() {
+            // Like FieldFilter, values are compared with equals() so an
+            // Integer never matches a long field
+            check(Filters.in(TestScore.class, "points", 10), []);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.base;
+
+import com.simsilica.es.*;
+
+/**
+ *  Tests for the ConcurrentLongMap based component handler.
+ *
+ *  @author    Paul Speed
+ */
+public class LongMapComponentHandlerTest {
+
+    static class HandlerTest extends GroovyTestCase {
+        void testSetGetRemove() {
+            def handler = new LongMapComponentHandler<Name>(Name.class);
+            def id = new EntityId(5);
+            handler.setComponent(id, new Name("one"));
+            assert "one" == handler.getComponent(id).name;
+
+            handler.setComponent(id, new Name("two"));
+            assert "two" == handler.getComponent(id).name;
+
+            assert handler.removeComponent(id);
+            assert !handler.removeComponent(id);
+            assert null == handler.getComponent(id);
+        }
+
+        void testQueries() {
+            def handler = new LongMapComponentHandler<Name>(Name.class);
+            def ids = (0..<100).collect { new EntityId(it) } as EntityId[];
+            handler.setComponents(ids, new Name("all"));
+            handler.setComponent(ids[42], new Name("answer"));
+
+            assert ids as Set == handler.getEntities();
+            assert [ids[42]] as Set == handler.getEntities(Name.filter("answer"));
+            assert ids[42] == handler.findEntity(Name.filter("answer"));
+            assert null == handler.findEntity(Name.filter("missing"));
+            assert 99 == handler.getEntities(Name.filter("all")).size();
+            assert 100 == handler.estimateSize(null);
+        }
+
+        void testAsDefaultHandlers() {
+            def ed = new DefaultEntityData();
+            ed.setDefaultHandlerFactory(ComponentHandlerFactory.LONG_MAP_HANDLERS);
+            def id = ed.createEntity();
+            ed.setComponent(id, new Name("test"));
+            assert ed.getHandler(Name.class) instanceof LongMapComponentHandler;
+            assert "test" == ed.getComponent(id, Name.class).name;
+            assert id == ed.findEntity(Name.filter("test"), Name.class);
+
+            ed.removeEntity(id);
+            assert null == ed.getComponent(id, Name.class);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.sql;
+
+import com.simsilica.es.*;
+
+/**
+ *  Tests that SqlComponentHandler's component cache stays coherent with
+ *  the database as components are set and removed.
+ *
+ *  @author    Paul Speed
+ */
+public class ComponentCacheTest {
+
+    static class CoherenceTest extends SqlTestCase {
+        SqlComponentHandler<TestStats> handler;
+
+        void setUp() {
+            super.setUp();
+            ed.setComponentCacheSize(TestStats.class, 100);
+            handler = ed.getSqlHandler(TestStats.class);
+        }
+
+        TestStats stored( EntityId id ) {
+            return handler.table.getComponent(ed.getSession(), id);
+        }
+
+        void testSetReplacesCachedValue() {
+            def id = ed.createEntity();
+            ed.setComponent(id, new TestStats(1, 2, "one"));
+            assert new TestStats(1, 2, "one") == ed.getComponent(id, TestStats.class);
+
+            ed.setComponent(id, new TestStats(3, 4, "two"));
+            assert new TestStats(3, 4, "two") == ed.getComponent(id, TestStats.class);
+            assert new TestStats(3, 4, "two") == stored(id);
+            assert handler.cacheStats.hitCount() > 0;
+        }
+
+        void testSetReplacesCachedAbsence() {
+            def id = ed.createEntity();
+            assert null == ed.getComponent(id, TestStats.class);
+
+            ed.setComponent(id, new TestStats(1, 2, "one"));
+            assert new TestStats(1, 2, "one") == ed.getComponent(id, TestStats.class);
+            assert [(id): new TestStats(1, 2, "one")] == ed.getComponents([id], TestStats.class);
+        }
+
+        void testRemoveReplacesCachedValue() {
+            def id = ed.createEntity();
+            ed.setComponent(id, new TestStats(1, 2, "one"));
+            assert null != ed.getComponent(id, TestStats.class);
+
+            assert ed.removeComponent(id, TestStats.class);
+            assert null == ed.getComponent(id, TestStats.class);
+            assert ed.getComponents([id], TestStats.class).isEmpty();
+            assert null == stored(id);
+            assert !ed.removeComponent(id, TestStats.class);
+        }
+
+        void testWriteBehindStaysCoherent() {
+            ed.setWriteBehind(60000);
+            def id = ed.createEntity();
+            ed.setComponent(id, new TestStats(1, 2, "one"));
+            assert new TestStats(1, 2, "one") == ed.getComponent(id, TestStats.class);
+
+            ed.removeComponent(id, TestStats.class);
+            assert null == ed.getComponent(id, TestStats.class);
+            ed.flushWrites();
+            assert null == stored(id);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.sql;
+
+import com.simsilica.es.*;
+
+/**
+ *  Tests for ComponentTable's MERGE upserts against a temporary HSQLDB
+ *  database.
+ *
+ *  @author    Paul Speed
+ */
+public class ComponentTableTest {
+
+    static class UpsertTest extends SqlTestCase {
+        SqlSession session;
+
+        void setUp() {
+            super.setUp();
+            session = ed.getSession();
+        }
+
+        void testInsertThenUpdate() {
+            def table = ComponentTable.create(session, TestStats.class);
+            def id = new EntityId(1);
+            table.setComponent(session, id, new TestStats(1, 2, "one"));
+            assert new TestStats(1, 2, "one") == table.getComponent(session, id);
+
+            table.setComponent(session, id, new TestStats(3, 4, null));
+            assert new TestStats(3, 4, null) == table.getComponent(session, id);
+            assert [id] as Set == table.getEntityIds(session);
+        }
+
+        void testMarkerSetTwice() {
+            def table = ComponentTable.create(session, TestMarker.class);
+            def id = new EntityId(1);
+            table.setComponent(session, id, new TestMarker());
+            table.setComponent(session, id, new TestMarker());
+            assert table.hasComponent(session, id);
+            assert [id] as Set == table.getEntityIds(session);
+
+            assert table.removeComponent(session, id);
+            assert !table.hasComponent(session, id);
+        }
+
+        void testSetComponentsBatch() {
+            def table = ComponentTable.create(session, TestStats.class);
+
+            // Half of the batch already exists
+            for( int i = 0; i < 50; i++ ) {
+                table.setComponent(session, new EntityId(i), new TestStats(i, 0, "old"));
+            }
+            def batch = [:];
+            for( int i = 0; i < 100; i++ ) {
+                batch.put(new EntityId(i), new TestStats(i, i, "new" + i));
+            }
+            table.setComponents(session, batch);
+
+            assert batch == table.getComponents(session, batch.keySet());
+            assert 100 == table.getEntityIds(session).size();
+        }
+
+        void testMarkerSetComponentsBatch() {
+            def table = ComponentTable.create(session, TestMarker.class);
+            table.setComponent(session, new EntityId(0), new TestMarker());
+            def batch = [:];
+            for( int i = 0; i < 10; i++ ) {
+                batch.put(new EntityId(i), new TestMarker());
+            }
+            table.setComponents(session, batch);
+            assert batch.keySet() == table.getEntityIds(session);
+        }
+
+        void testRemoveComponentsBatch() {
+            def table = ComponentTable.create(session, TestStats.class);
+            def batch = [:];
+            for( int i = 0; i < 10; i++ ) {
+                batch.put(new EntityId(i), new TestStats(i, i, "x"));
+            }
+            table.setComponents(session, batch);
+            table.removeComponents(session, (0..<5).collect { new EntityId(it) });
+            assert (5..<10).collect { new EntityId(it) } as Set == table.getEntityIds(session);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.sql;
+
+import com.simsilica.es.*;
+import com.simsilica.es.filter.RangeFilter;
+
+/**
+ *  Tests that RangeFilter and InFilter queries run as SQL match the
+ *  filters' own evaluation.
+ *
+ *  @author    Paul Speed
+ */
+public class FilterPushdownTest {
+
+    /**
+     *  Ten entities with hp 0, 10, ... 90 and labels t1 and t2 except
+     *  for every third entity, which has a null label.
+     */
+    static class QueryTest extends SqlTestCase {
+        Map<EntityId, TestStats> stats = [:];
+
+        void setUp() {
+            super.setUp();
+            for( int i = 0; i < 10; i++ ) {
+                def id = ed.createEntity();
+                def value = new TestStats(i * 10, (float)(i * 0.5), i % 3 == 0 ? null : "t" + (i % 3));
+                stats.put(id, value);
+                ed.setComponent(id, value);
+            }
+        }
+
+        /**
+         *  Checks that the database query and the filter agree and returns
+         *  the number of matching entities.
+         */
+        int check( ComponentFilter filter ) {
+            def expected = stats.findAll { id, value -> filter.evaluate(value) }.keySet();
+            assert expected == ed.findEntities(filter, TestStats.class);
+            return expected.size();
+        }
+
+        String sql( ComponentFilter filter ) {
+            return ed.getSqlHandler(TestStats.class).table.buildStatement(filter, []);
+        }
+
+        void testInclusiveBounds() {
+            def filter = Filters.between(TestStats.class, "hp", 20, 40);
+            assert 3 == check(filter);
+            assert sql(filter).contains("BETWEEN");
+        }
+
+        void testExclusiveBounds() {
+            assert 1 == check(RangeFilter.create(TestStats.class, "hp", 20, false, 40, false));
+            assert 2 == check(RangeFilter.create(TestStats.class, "hp", 20, true, 40, false));
+            assert 2 == check(RangeFilter.create(TestStats.class, "hp", 20, false, 40, true));
+            assert 0 == check(RangeFilter.create(TestStats.class, "hp", 20, true, 20, false));
+        }
+
+        void testOpenEnded() {
+            assert 3 == check(Filters.lessThan(TestStats.class, "hp", 30));
+            assert 2 == check(Filters.greaterThan(TestStats.class, "hp", 70));
+            assert 10 == check(RangeFilter.create(TestStats.class, "hp", null, false, null, false));
+            assert 6 == check(RangeFilter.create(TestStats.class, "label", null, false, null, false));
+            assert 4 == check(Filters.greaterThan(TestStats.class, "speed", 2.5f));
+        }
+
+        void testMismatchedBoundTypes() {
+            assert 3 == check(Filters.between(TestStats.class, "hp", 20L, 40L));
+            assert 3 == check(Filters.lessThan(TestStats.class, "hp", 25.5));
+        }
+
+        void testInValues() {
+            assert 2 == check(Filters.in(TestStats.class, "hp", 0, 50, 55));
+            assert 3 == check(Filters.in(TestStats.class, "label", "t1"));
+        }
+
+        void testInNullMembers() {
+            def filter = Filters.in(TestStats.class, "label", "t1", null);
+            assert 7 == check(filter);
+            assert sql(filter).contains("IS NULL");
+            assert 4 == check(Filters.in(TestStats.class, "label", [null] as Object[]));
+        }
+    }
+}
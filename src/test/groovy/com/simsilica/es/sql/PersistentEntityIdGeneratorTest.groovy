@@ -0,0 +1,74 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.sql;
+
+import com.simsilica.es.*;
+
+/**
+ *  Tests for the block reserving PersistentEntityIdGenerator against
+ *  a temporary HSQLDB database.
+ *
+ *  @author    Paul Speed
+ */
+public class PersistentEntityIdGeneratorTest {
+
+    static class BlockTest extends SqlTestCase {
+        void testIdsSurviveReopen() {
+            def ids = [] as Set;
+            for( int round = 0; round < 3; round++ ) {
+                // Use up part of a block and then part of a bulk request
+                for( int i = 0; i < 30; i++ ) {
+                    assert ids.add(ed.createEntity().id);
+                }
+                ed.createEntities(150).each { id ->
+                    assert ids.add(id.id);
+                }
+                reopen();
+            }
+            assert 3 * 180 == ids.size();
+        }
+
+        void testNegativeCountLeavesNextIdUnchanged() {
+            def gen = PersistentEntityIdGenerator.create(ed, 10);
+            long first = gen.nextEntityId();
+            shouldFail(IllegalArgumentException) {
+                gen.nextEntityIds(-5);
+            }
+            assert first + 1 == gen.nextEntityId();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.sql;
+
+import com.simsilica.es.*;
+
+/**
+ *  Tests for SqlSession's bounded statement cache and the shared
+ *  statement stats against a temporary HSQLDB database.
+ *
+ *  @author    Paul Speed
+ */
+public class SqlSessionTest {
+
+    static class StatementCacheTest extends SqlTestCase {
+        void testEvictionsAreCounted() {
+            def stats = new SqlSession.StatementStats();
+            def session = new SqlSession(ed.getSession().getConnection(), 2, stats);
+            session.prepareStatement("VALUES 1");
+            session.prepareStatement("VALUES 2");
+            session.prepareStatement("VALUES 1");
+            session.prepareStatement("VALUES 3");
+
+            assert 2 == session.cachedStatementCount;
+            assert 2 == stats.cachedStatementCount;
+            assert 1 == stats.cacheHits;
+            assert 3 == stats.cacheMisses;
+            assert 1 == stats.cacheEvictions;
+
+            session.release();
+            assert 0 == stats.cachedStatementCount;
+        }
+
+        void testClosedSessionsAreNotCounted() {
+            def stats = ed.statementStats;
+            long misses = stats.cacheMisses;
+            long cached = stats.cachedStatementCount;
+            def thread = Thread.start {
+                ed.getSession().prepareStatement("VALUES 1");
+                ed.closeSession();
+            }
+            thread.join();
+            assert misses + 1 == stats.cacheMisses;
+            assert cached == stats.cachedStatementCount;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.sql;
+
+import com.simsilica.es.PersistentComponent;
+import com.simsilica.es.StringType;
+
+/**
+ *  Persistent component with a few field types used by the SQL tests.
+ *  The label is short so that tests can produce a write that fails.
+ *
+ *  @author    Paul Speed
+ */
+public class TestStats implements PersistentComponent {
+    private int hp;
+    private float speed;
+
+    @StringType(maxLength=16)
+    private String label;
+
+    public TestStats() {
+    }
+
+    public TestStats( int hp, float speed, String label ) {
+        this.hp = hp;
+        this.speed = speed;
+        this.label = label;
+    }
+
+    public int getHp() {
+        return hp;
+    }
+
+    public float getSpeed() {
+        return speed;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    @Override
+    public boolean equals( Object o ) {
+        if( !(o instanceof TestStats) ) {
+            return false;
+        }
+        TestStats other = (TestStats)o;
+        return hp == other.hp && speed == other.speed && Objects.equals(label, other.label);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hp, speed, label);
+    }
+
+    @Override
+    public String toString() {
+        return "TestStats[hp=" + hp + ", speed=" + speed + ", label=" + label + "]";
+    }
+}
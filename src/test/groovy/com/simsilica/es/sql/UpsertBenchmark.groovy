@@ -0,0 +1,160 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.sql;
+
+import java.nio.file.Files;
+import java.sql.*;
+
+import com.simsilica.es.*;
+
+/**
+ *  Measures component writes per second against a temporary HSQLDB
+ *  database for the old UPDATE-then-INSERT path, single MERGE upserts,
+ *  and MERGE upserts sent as JDBC batches.  Each mode first inserts
+ *  rows for new entities and then updates the same rows.  This is not
+ *  a test and is run by hand with the test runtime classpath:
+ *  <pre>
+ *  java com.simsilica.es.sql.UpsertBenchmark [count] [batchSize]
+ *  </pre>
+ *
+ *  @author    Paul Speed
+ */
+public class UpsertBenchmark {
+
+    static ComponentTable<TestStats> table;
+    static SqlSession session;
+    static String updateSql;
+    static String insertSql;
+
+    public static void main( String... args ) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int batchSize = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        File dir = Files.createTempDirectory("es-upsert-benchmark").toFile();
+        SqlEntityData ed = new SqlEntityData(dir, 100);
+        try {
+            session = ed.getSession();
+            table = ComponentTable.create(session, TestStats.class);
+
+            // The statements that setComponent() used before the MERGE
+            def names = table.dbFieldNames.join(", ");
+            def params = table.dbFieldNames.collect { "?" }.join(", ");
+            updateSql = "UPDATE " + table.tableName + " SET (" + names + ") = (" + params + ") WHERE entityId = ?";
+            insertSql = "INSERT INTO " + table.tableName + " (" + names + ", entityId) VALUES (" + params + ", ?)";
+
+            // Warm up with a round of each before measuring
+            long base = 0;
+            for( int pass = 0; pass < 2; pass++ ) {
+                int n = pass == 0 ? count / 10 : count;
+                boolean report = pass == 1;
+                base = run("update+insert", base, n, report) { long id, TestStats c -> updateOrInsert(id, c) };
+                base = run("merge", base, n, report) { long id, TestStats c -> merge(id, c) };
+                base = runBatched("merge batch " + batchSize, base, n, batchSize, report);
+            }
+        } finally {
+            ed.close();
+            dir.deleteDir();
+        }
+    }
+
+    static long run( String name, long base, int count, boolean report, Closure write ) {
+        def ops = ["insert", "update"];
+        for( String op : ops ) {
+            long start = System.nanoTime();
+            for( int i = 0; i < count; i++ ) {
+                write(base + i, new TestStats(i, i, op));
+            }
+            long end = System.nanoTime();
+            if( report ) {
+                printRate(name, op, count, end - start);
+            }
+        }
+        return base + count;
+    }
+
+    static long runBatched( String name, long base, int count, int batchSize, boolean report ) {
+        def ops = ["insert", "update"];
+        Connection conn = session.getConnection();
+        for( String op : ops ) {
+            long start = System.nanoTime();
+            conn.setAutoCommit(false);
+            for( int i = 0; i < count; i += batchSize ) {
+                Map<EntityId, TestStats> batch = new LinkedHashMap<>();
+                for( int j = i; j < Math.min(count, i + batchSize); j++ ) {
+                    batch.put(new EntityId(base + j), new TestStats(j, j, op));
+                }
+                table.setComponents(session, batch);
+                conn.commit();
+            }
+            conn.setAutoCommit(true);
+            long end = System.nanoTime();
+            if( report ) {
+                printRate(name, op, count, end - start);
+            }
+        }
+        return base + count;
+    }
+
+    static void updateOrInsert( long id, TestStats component ) {
+        PreparedStatement st = session.prepareStatement(updateSql);
+        int index = 1;
+        for( FieldType t : table.fields ) {
+            index = t.store(component, st, index);
+        }
+        st.setLong(index, id);
+        if( st.executeUpdate() > 0 ) {
+            return;
+        }
+        st = session.prepareStatement(insertSql);
+        index = 1;
+        for( FieldType t : table.fields ) {
+            index = t.store(component, st, index);
+        }
+        st.setLong(index, id);
+        st.executeUpdate();
+    }
+
+    static void merge( long id, TestStats component ) {
+        table.setComponent(session, new EntityId(id), component);
+    }
+
+    static void printRate( String name, String op, int count, long nanos ) {
+        double perSecond = count / (nanos / 1000000000.0);
+        System.out.println(String.format("%-18s %-6s %8d rows %8.1f ms %10.0f rows/sec",
+                                         name, op, count, nanos / 1000000.0, perSecond));
+    }
+}
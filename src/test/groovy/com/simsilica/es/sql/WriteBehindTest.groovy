@@ -0,0 +1,159 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.es.sql;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.simsilica.es.*;
+
+/**
+ *  Tests for the write-behind queue against a temporary HSQLDB database.
+ *
+ *  @author    Paul Speed
+ */
+public class WriteBehindTest {
+
+    static class QueueTest extends SqlTestCase {
+
+        void setUp() {
+            super.setUp();
+
+            // Long enough that the writer thread never flushes on its own
+            ed.setWriteBehind(60000);
+        }
+
+        void testReadsSeePendingWrites() {
+            def id = ed.createEntity();
+            ed.setComponent(id, new TestStats(1, 2, "one"));
+            assert 1 == ed.writeQueue.pendingCount;
+            assert new TestStats(1, 2, "one") == ed.getComponent(id, TestStats.class);
+
+            ed.setComponent(id, new TestStats(3, 4, "two"));
+            assert 1 == ed.writeQueue.pendingCount;
+            assert new TestStats(3, 4, "two") == ed.getComponent(id, TestStats.class);
+
+            ed.removeComponent(id, TestStats.class);
+            assert null == ed.getComponent(id, TestStats.class);
+        }
+
+        void testFlushWritesToDatabase() {
+            def id = ed.createEntity();
+            ed.setComponent(id, new TestStats(1, 2, "one"));
+            ed.setComponent(id, new TestMarker());
+            ed.flushWrites();
+            assert 0 == ed.writeQueue.pendingCount;
+
+            reopen();
+            assert new TestStats(1, 2, "one") == ed.getComponent(id, TestStats.class);
+            assert new TestMarker() == ed.getComponent(id, TestMarker.class);
+        }
+
+        void testQueriesSeePendingWrites() {
+            def id = ed.createEntity();
+            ed.setComponent(id, new Name("pending"));
+            assert [id] as Set == ed.findEntities(Name.filter("pending"), Name.class);
+        }
+
+        void testBadWriteDoesNotBlockOthers() {
+            def good = ed.createEntity();
+            def bad = ed.createEntity();
+            ed.writeQueue.maxAttempts = 2;
+            ed.setComponent(good, new TestStats(1, 2, "good"));
+            ed.setComponent(bad, new TestStats(1, 2, "this label is too long for its column"));
+
+            ed.flushWrites();
+            assert 1 == ed.writeQueue.pendingCount;
+            ed.flushWrites();
+            assert 0 == ed.writeQueue.pendingCount;
+            assert 1 == ed.writeQueue.droppedCount;
+
+            reopen();
+            assert new TestStats(1, 2, "good") == ed.getComponent(good, TestStats.class);
+            assert null == ed.getComponent(bad, TestStats.class);
+        }
+
+        void testReadsSeeWritesOfFailedBatches() {
+            def good = ed.createEntity();
+            def bad = ed.createEntity();
+            def value = new TestStats(1, 2, "this label is too long for its column");
+            ed.writeQueue.maxAttempts = Integer.MAX_VALUE;
+            ed.setComponent(bad, value);
+
+            // Every flush fails the batch and puts the bad write back while
+            // the readers check that they never lose sight of it
+            def queue = ed.writeQueue;
+            def table = ed.getSqlHandler(TestStats.class).table;
+            def misses = new AtomicInteger();
+            def running = new AtomicBoolean(true);
+            def readers = (1..4).collect {
+                Thread.start {
+                    while( running.get() ) {
+                        if( !queue.getPending(table, bad).is(value) ) {
+                            misses.incrementAndGet();
+                        }
+                    }
+                }
+            }
+            try {
+                for( int i = 0; i < 100; i++ ) {
+                    ed.setComponent(good, new TestStats(i, i, "good"));
+                    ed.flushWrites();
+                }
+            } finally {
+                running.set(false);
+                readers*.join();
+
+                // So that close() doesn't keep retrying it
+                queue.maxAttempts = 1;
+            }
+            assert 0 == misses.get() : "misses:" + misses.get();
+        }
+
+        void testCloseShutsDownWithBadWrite() {
+            def good = ed.createEntity();
+            def bad = ed.createEntity();
+            ed.setComponent(good, new TestStats(1, 2, "good"));
+            ed.setComponent(bad, new TestStats(1, 2, "this label is too long for its column"));
+
+            // The bad write is dropped and the database still shuts down
+            // so that it can be opened again
+            reopen();
+            assert new TestStats(1, 2, "good") == ed.getComponent(good, TestStats.class);
+        }
+    }
+}
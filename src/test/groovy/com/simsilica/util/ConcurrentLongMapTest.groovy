@@ -0,0 +1,254 @@
+/*
+ * $Id$
+ *
+ * Copyright (c) 2026, Simsilica, LLC
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright
+ *    notice, this list of conditions and the following disclaimer in
+ *    the documentation and/or other materials provided with the
+ *    distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived
+ *    from this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.simsilica.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ *  Tests for the segmented open-addressing ConcurrentLongMap.
+ *
+ *  @author    Paul Speed
+ */
+public class ConcurrentLongMapTest {
+
+    static class BasicTest extends GroovyTestCase {
+        void testPutGetRemove() {
+            def map = new ConcurrentLongMap<String>();
+            assert null == map.put(1, "one");
+            assert "one" == map.put(1, "uno");
+            assert "uno" == map.get(1);
+            assert map.containsKey(1);
+            assert !map.containsKey(2);
+            assert 1 == map.size();
+
+            assert "uno" == map.remove(1);
+            assert null == map.remove(1);
+            assert null == map.get(1);
+            assert map.isEmpty();
+        }
+
+        void testNegativeAndLargeKeys() {
+            def map = new ConcurrentLongMap<String>();
+            def keys = [0L, -1L, Long.MIN_VALUE, Long.MAX_VALUE, 1L << 32, (1L << 32) + 1, 1L << 52];
+            keys.each { map.put(it, "v" + it) }
+            keys.each { assert "v" + it == map.get(it) }
+            assert keys.size() == map.size();
+        }
+
+        void testNullValue() {
+            def map = new ConcurrentLongMap<String>();
+            shouldFail(IllegalArgumentException) {
+                map.put(1, null);
+            }
+        }
+
+        void testClear() {
+            def map = new ConcurrentLongMap<String>();
+            (0..<100).each { map.put(it, "v" + it) }
+            map.clear();
+            assert map.isEmpty();
+            assert null == map.get(5);
+            map.put(5, "five");
+            assert "five" == map.get(5);
+        }
+
+        void testVisit() {
+            def map = new ConcurrentLongMap<String>();
+            (0..<100).each { map.put(it * 7, "v" + it) }
+            def seen = [:];
+            assert map.visit({ long key, String value -> seen.put(key, value); return true } as ConcurrentLongMap.Visitor);
+            assert 100 == seen.size();
+            (0..<100).each { assert "v" + it == seen[it * 7L] }
+
+            int count = 0;
+            assert !map.visit({ long key, String value -> ++count < 10 } as ConcurrentLongMap.Visitor);
+            assert 10 == count;
+        }
+    }
+
+    /**
+     *  Uses a single segment so that the slots are easy to predict.  With
+     *  16 slots, keys 15, 31, and 47 all want the last slot and the
+     *  probing wraps around to the front of the table.
+     */
+    static class CollisionTest extends GroovyTestCase {
+        void testCollidingKeys() {
+            def map = new ConcurrentLongMap<String>(1);
+            [15L, 31L, 47L, 0L, 16L].each { map.put(it, "v" + it) }
+            [15L, 31L, 47L, 0L, 16L].each { assert "v" + it == map.get(it) }
+            assert null == map.get(63);
+        }
+
+        void testRemoveAtWrapPoint() {
+            def map = new ConcurrentLongMap<String>(1);
+            def keys = [15L, 31L, 47L, 0L, 16L];
+            keys.each { map.put(it, "v" + it) }
+
+            // Removing the entry in the last slot has to shift the entries
+            // that wrapped around back into it
+            assert "v15" == map.remove(15);
+            keys.remove(15L);
+            keys.each { assert "v" + it == map.get(it) }
+            assert null == map.get(15);
+
+            // ...and removing from the front shifts the rest of the chain
+            assert "v31" == map.remove(31);
+            keys.remove(31L);
+            keys.each { assert "v" + it == map.get(it) }
+
+            // Put the removed keys back in a different order
+            map.put(31, "v31");
+            map.put(15, "v15");
+            [15L, 31L, 47L, 0L, 16L].each { assert "v" + it == map.get(it) }
+            assert 5 == map.size();
+        }
+
+        void testGrowth() {
+            def map = new ConcurrentLongMap<Long>(1);
+            for( long i = 0; i < 10000; i++ ) {
+                map.put(i * 16 + 15, i);
+            }
+            assert 10000 == map.size();
+            for( long i = 0; i < 10000; i++ ) {
+                assert i == map.get(i * 16 + 15);
+            }
+        }
+
+        /**
+         *  Random puts and removes of keys that collide at the wrap point
+         *  of every table size checked against a HashMap.
+         */
+        void testMatchesHashMap() {
+            def random = new Random(42);
+            def keys = [];
+            for( int i = 0; i < 64; i++ ) {
+                keys << (long)(i * 16 + 15) << (long)(i * 16) << (long)(i * 1024 + 1023);
+                keys << ((1L << 40) | i);
+            }
+            for( int segments : [1, 4, 16] ) {
+                def map = new ConcurrentLongMap<Integer>(segments);
+                def expected = [:];
+                for( int op = 0; op < 20000; op++ ) {
+                    long key = keys[random.nextInt(keys.size())];
+                    if( random.nextInt(3) == 0 ) {
+                        assert expected.remove(key) == map.remove(key);
+                    } else {
+                        assert expected.put(key, op) == map.put(key, op);
+                    }
+                    if( op % 500 == 0 ) {
+                        keys.each { k -> assert expected[k] == map.get(k) }
+                        assert expected.size() == map.size();
+                    }
+                }
+                def seen = [:];
+                map.visit({ long key, Integer value -> seen.put(key, value); return true } as ConcurrentLongMap.Visitor);
+                assert expected == seen;
+            }
+        }
+    }
+
+    static class ConcurrencyTest extends GroovyTestCase {
+
+        /**
+         *  Writer threads churn their own keys, which share segments with
+         *  each other and with a set of stable keys.  Readers check that
+         *  the stable keys never disappear while tables resize and entries
+         *  are shifted around them.
+         */
+        void testPutRemoveGet() {
+            def map = new ConcurrentLongMap<Long>(4);
+            int writerCount = 4;
+            for( long i = 0; i < 1000; i++ ) {
+                map.put(stable(i), i);
+            }
+
+            def errors = new ConcurrentLinkedQueue<String>();
+            def running = new AtomicBoolean(true);
+            def readers = (0..<2).collect {
+                Thread.start {
+                    while( running.get() ) {
+                        for( long i = 0; i < 1000; i++ ) {
+                            Long value = map.get(stable(i));
+                            if( value != i ) {
+                                errors.add("Stable key:" + stable(i) + " had:" + value);
+                            }
+                        }
+                    }
+                }
+            }
+            def writers = (0..<writerCount).collect { int w ->
+                Thread.start {
+                    def random = new Random(w);
+                    def mine = [:];
+                    for( int op = 0; op < 50000; op++ ) {
+                        long key = random.nextInt(2000) * writerCount + w;
+                        if( random.nextBoolean() ) {
+                            Long old = map.put(key, (long)op);
+                            if( old != mine.put(key, (long)op) ) {
+                                errors.add("Put of:" + key + " replaced:" + old);
+                            }
+                        } else {
+                            Long old = map.remove(key);
+                            if( old != mine.remove(key) ) {
+                                errors.add("Remove of:" + key + " returned:" + old);
+                            }
+                        }
+                        if( map.get(key) != mine[key] ) {
+                            errors.add("Get of:" + key + " returned:" + map.get(key));
+                        }
+                    }
+                    mine.each { k, v ->
+                        if( map.get(k) != v ) {
+                            errors.add("Final value of:" + k + " was:" + map.get(k));
+                        }
+                    }
+                }
+            }
+            writers*.join();
+            running.set(false);
+            readers*.join();
+
+            assert errors.isEmpty() : errors.take(10);
+        }
+
+        private static long stable( long i ) {
+            // Well away from the writer keys
+            return 1000000 + i * 3;
+        }
+    }
+}